@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Measures one full layout pass of SplitPaneLayout next to the LinearLayout it replaces, a
+// horizontal layout with a 2:3 weighted master and detail pane around a divider.
+@RunWith (RobolectricTestRunner.class)
+@Config (emulateSdk = 18)
+public class SplitPaneLayoutBenchmarkTest {
+    private static final int ITERATIONS = 200;
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+    private static final int DIVIDER_WIDTH = 2;
+
+
+    // ================================================================================
+    // Layout Pass
+    // ================================================================================
+
+    @Test
+    public void splitPaneLayout () {
+        final SplitPaneLayout layout = new SplitPaneLayout(Robolectric.application);
+        layout.setMasterPaneRatio(0.4f);
+
+        final TestPaneView[] panes = addPanes(layout, ViewGroup.LayoutParams.MATCH_PARENT, 0f);
+
+        measureLayoutPass("layoutPass.splitPaneLayout", layout, panes);
+    }
+
+    @Test
+    public void linearLayout () {
+        final LinearLayout layout = new LinearLayout(Robolectric.application);
+        layout.setOrientation(LinearLayout.HORIZONTAL);
+
+        final TestPaneView[] panes = addPanes(layout, 0, 2f);
+        ((LinearLayout.LayoutParams) panes[2].getLayoutParams()).weight = 3f;
+
+        measureLayoutPass("layoutPass.linearLayout", layout, panes);
+    }
+
+
+    // ================================================================================
+    // Helpers
+    // ================================================================================
+
+    private static TestPaneView[] addPanes (final ViewGroup layout, final int paneWidth,
+                                            final float weight) {
+        final TestPaneView[] panes = new TestPaneView[3];
+
+        for (int i = 0; i < panes.length; i++) {
+            panes[i] = new TestPaneView(Robolectric.application);
+
+            final boolean divider = (i == 1);
+            final LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                    divider ? DIVIDER_WIDTH : paneWidth, ViewGroup.LayoutParams.MATCH_PARENT,
+                    divider ? 0f : weight);
+
+            layout.addView(panes[i], params);
+        }
+
+        return panes;
+    }
+
+    // Every view is flagged for layout before a pass, as after a requestLayout() that reaches
+    // the whole hierarchy. The measure count is the most any pane was measured in one pass.
+    private static void measureLayoutPass (final String name, final ViewGroup layout,
+                                           final TestPaneView[] panes) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            layoutPass(layout, panes);
+        }
+
+        final long[] wallTimes = new long[ITERATIONS];
+        final long[] allocations = new long[ITERATIONS];
+        long measures = 0;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (final TestPaneView pane : panes) {
+                pane.resetCounts();
+            }
+
+            final long allocatedBefore = SplitViewBenchmark.getAllocatedBytes();
+            final long start = System.nanoTime();
+
+            layoutPass(layout, panes);
+
+            wallTimes[i] = System.nanoTime() - start;
+            allocations[i] = SplitViewBenchmark.getAllocatedBytes() - allocatedBefore;
+
+            for (final TestPaneView pane : panes) {
+                measures = Math.max(measures, pane.mMeasureCount);
+            }
+        }
+
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put(SplitViewBenchmark.METRIC_WALL_TIME,
+                    SplitViewBenchmark.median(wallTimes) / 1000);
+        metrics.put(SplitViewBenchmark.METRIC_MEASURES, measures);
+
+        if (SplitViewBenchmark.isAllocationTrackingSupported()) {
+            metrics.put(SplitViewBenchmark.METRIC_ALLOCATIONS,
+                        SplitViewBenchmark.median(allocations));
+        }
+
+        SplitViewBenchmark.record(name, metrics);
+    }
+
+    private static void layoutPass (final ViewGroup layout, final TestPaneView[] panes) {
+        layout.forceLayout();
+
+        for (final View pane : panes) {
+            pane.forceLayout();
+        }
+
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                       View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Space;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith (RobolectricTestRunner.class)
+@Config (emulateSdk = 18)
+public class SplitPaneLayoutTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 800;
+
+    private SplitPaneLayout mLayout;
+    private TestPaneView mMasterPane;
+    private TestPaneView mDetailPane;
+
+
+    @Before
+    public void setUp () {
+        mLayout = new SplitPaneLayout(Robolectric.application);
+        mMasterPane = new TestPaneView(Robolectric.application);
+        mDetailPane = new TestPaneView(Robolectric.application);
+    }
+
+
+    // ================================================================================
+    // Divider
+    // ================================================================================
+
+    @Test
+    public void dividerWithFixedWidthSitsBetweenPanes () {
+        final View dividerView = new View(Robolectric.application);
+        addPanes(dividerView, 4);
+
+        layout();
+
+        assertEquals(398, mMasterPane.getWidth());
+        assertEquals(398, dividerView.getLeft());
+        assertEquals(4, dividerView.getWidth());
+        assertEquals(402, mDetailPane.getLeft());
+        assertEquals(598, mDetailPane.getWidth());
+    }
+
+    @Test
+    public void dividerWithWrapContentIsMeasured () {
+        final Space dividerView = new Space(Robolectric.application);
+        dividerView.setMinimumWidth(6);
+        addPanes(dividerView, ViewGroup.LayoutParams.WRAP_CONTENT);
+
+        layout();
+
+        assertEquals(6, dividerView.getWidth());
+        assertEquals(WIDTH - 6, mMasterPane.getWidth() + mDetailPane.getWidth());
+    }
+
+    @Test
+    public void dividerIsLimitedToContentWidth () {
+        final View dividerView = new View(Robolectric.application);
+        addPanes(dividerView, 2 * WIDTH);
+
+        layout();
+
+        assertEquals(WIDTH, dividerView.getWidth());
+        assertEquals(0, mMasterPane.getWidth());
+        assertEquals(0, mDetailPane.getWidth());
+    }
+
+
+    // ================================================================================
+    // Children
+    // ================================================================================
+
+    @Test
+    public void layoutPassMeasuresEveryPaneOnce () {
+        final TestPaneView dividerView = new TestPaneView(Robolectric.application);
+        addPanes(dividerView, 4);
+
+        layout();
+
+        assertEquals(1, mMasterPane.mMeasureCount);
+        assertEquals(1, dividerView.mMeasureCount);
+        assertEquals(1, mDetailPane.mMeasureCount);
+    }
+
+    @Test
+    public void subDetailPaneSharesDetailWidth () {
+        addPanes(new View(Robolectric.application), 4);
+
+        final TestPaneView subDetailPane = new TestPaneView(Robolectric.application);
+        mLayout.addView(subDetailPane);
+
+        layout();
+
+        assertEquals(1, mDetailPane.mMeasureCount);
+        assertEquals(1, subDetailPane.mMeasureCount);
+        assertEquals(402, mDetailPane.getLeft());
+        assertEquals(299, mDetailPane.getWidth());
+        assertEquals(701, subDetailPane.getLeft());
+        assertEquals(299, subDetailPane.getWidth());
+
+        subDetailPane.setVisibility(View.GONE);
+        layout();
+
+        assertEquals(598, mDetailPane.getWidth());
+    }
+
+    @Test
+    public void extraChildIsRejected () {
+        addPanes(new View(Robolectric.application), 4);
+        mLayout.addView(new View(Robolectric.application));
+
+        try {
+            mLayout.addView(new View(Robolectric.application));
+            fail("A fifth child was added.");
+        } catch (final IllegalStateException expected) {
+            assertEquals(4, mLayout.getChildCount());
+        }
+    }
+
+
+    // ================================================================================
+    // Helpers
+    // ================================================================================
+
+    private void addPanes (final View dividerView, final int dividerWidth) {
+        mLayout.addView(mMasterPane, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        mLayout.addView(dividerView, new ViewGroup.LayoutParams(
+                dividerWidth, ViewGroup.LayoutParams.MATCH_PARENT));
+        mLayout.addView(mDetailPane, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+
+    private void layout () {
+        mLayout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mLayout.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
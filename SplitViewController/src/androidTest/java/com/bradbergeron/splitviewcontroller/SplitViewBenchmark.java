@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.junit.Assert.fail;
+
+// Runs an operation against a hosted controller and records what it costs. Every result is
+// written to a JSON report and checked against the thresholds in benchmark-thresholds.properties,
+// so a change that makes an operation commit, instantiate, inflate or allocate more fails the
+// build. Wall time depends on the machine the build runs on, so it is only reported.
+final class SplitViewBenchmark {
+    static final String METRIC_WALL_TIME = "wallTimeMicros";
+    static final String METRIC_COMMITS = "commits";
+    static final String METRIC_INSTANTIATIONS = "instantiations";
+    static final String METRIC_INFLATIONS = "inflations";
+    static final String METRIC_ALLOCATIONS = "allocatedBytes";
+    static final String METRIC_MEASURES = "measures";
+
+    private static final String OUTPUT_PROPERTY = "benchmark.output";
+    private static final String DEFAULT_OUTPUT = "build/outputs/benchmarks/benchmarks.json";
+    private static final String THRESHOLDS_RESOURCE = "/benchmark-thresholds.properties";
+
+    private static final int DEFAULT_ITERATIONS = 20;
+    private static final int WARMUP_ITERATIONS = 5;
+
+    private static final Map<String, Map<String, Long>> sResults =
+            new TreeMap<String, Map<String, Long>>();
+    private static Properties sThresholds;
+
+
+    private SplitViewBenchmark () { }
+
+
+    // ================================================================================
+    // Operations
+    // ================================================================================
+
+    interface Operation {
+        // Brings the controller into the state the operation starts from. Not measured.
+        void setUp ();
+
+        void run ();
+    }
+
+    static Map<String, Long> measure (final String name, final SplitViewTestHost host,
+                                      final Operation operation) {
+        return measure(name, DEFAULT_ITERATIONS, host, operation);
+    }
+
+    static Map<String, Long> measure (final String name, final int iterations,
+                                      final SplitViewTestHost host, final Operation operation) {
+        for (int i = 0; i < Math.min(WARMUP_ITERATIONS, iterations); i++) {
+            operation.setUp();
+            host.flush();
+            operation.run();
+            host.flush();
+        }
+
+        final long[] wallTimes = new long[iterations];
+        final long[] allocations = new long[iterations];
+        long commits = 0;
+        long instantiations = 0;
+        long inflations = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            operation.setUp();
+            host.flush();
+
+            host.getController().getOperationCounts().reset();
+            TestDetailFragment.resetCounts();
+
+            final long allocatedBefore = getAllocatedBytes();
+            final long start = System.nanoTime();
+
+            operation.run();
+            host.flush();
+
+            wallTimes[i] = System.nanoTime() - start;
+            allocations[i] = getAllocatedBytes() - allocatedBefore;
+
+            // The counts of an operation do not vary between runs, so the largest one is kept.
+            commits = Math.max(commits, host.getController().getOperationCounts()
+                                            .getCommitCount());
+            instantiations = Math.max(instantiations, TestDetailFragment.sInstantiations);
+            inflations = Math.max(inflations, TestDetailFragment.sViewCreations);
+        }
+
+        final Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put(METRIC_WALL_TIME, median(wallTimes) / 1000);
+        metrics.put(METRIC_COMMITS, commits);
+        metrics.put(METRIC_INSTANTIATIONS, instantiations);
+        metrics.put(METRIC_INFLATIONS, inflations);
+
+        if (isAllocationTrackingSupported()) {
+            metrics.put(METRIC_ALLOCATIONS, median(allocations));
+        }
+
+        record(name, metrics);
+
+        return metrics;
+    }
+
+    static long median (final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2];
+    }
+
+
+    // ================================================================================
+    // Allocations
+    // ================================================================================
+
+    static boolean isAllocationTrackingSupported () {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        return threadBean instanceof com.sun.management.ThreadMXBean &&
+               ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported();
+    }
+
+    static long getAllocatedBytes () {
+        if (!isAllocationTrackingSupported()) {
+            return 0;
+        }
+
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+
+    // ================================================================================
+    // Report
+    // ================================================================================
+
+    // Writes the result to the report, then fails if any metric other than wall time is above
+    // its threshold. A metric without a threshold fails as well, so new benchmarks cannot go
+    // unchecked. Results named "group.variant" fall back to the thresholds of "group" when they
+    // have none.
+    static void record (final String name, final Map<String, Long> metrics) {
+        synchronized (sResults) {
+            sResults.put(name, metrics);
+            writeReport();
+        }
+
+        final Properties thresholds = getThresholds();
+
+        for (final Map.Entry<String, Long> metric : metrics.entrySet()) {
+            if (METRIC_WALL_TIME.equals(metric.getKey())) {
+                continue;
+            }
+
+            final String key = name + '.' + metric.getKey();
+            final String threshold = getThreshold(thresholds, name, metric.getKey());
+
+            if (threshold == null) {
+                fail("No threshold for " + key + " (measured " + metric.getValue() + ").");
+            } else if (metric.getValue() > Long.parseLong(threshold.trim())) {
+                fail(key + " regressed: " + metric.getValue() + " > " + threshold.trim() + '.');
+            }
+        }
+    }
+
+    private static String getThreshold (final Properties thresholds, final String name,
+                                        final String metric) {
+        String group = name;
+
+        while (true) {
+            final String threshold = thresholds.getProperty(group + '.' + metric);
+            final int separator = group.lastIndexOf('.');
+
+            if (threshold != null || separator == -1) {
+                return threshold;
+            }
+
+            group = group.substring(0, separator);
+        }
+    }
+
+    private static void writeReport () {
+        final File output = new File(System.getProperty(OUTPUT_PROPERTY, DEFAULT_OUTPUT));
+        final File directory = output.getAbsoluteFile().getParentFile();
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Could not create " + directory + '.');
+        }
+
+        final StringBuilder json = new StringBuilder("{\n  \"benchmarks\": [");
+        boolean firstResult = true;
+
+        for (final Map.Entry<String, Map<String, Long>> result : sResults.entrySet()) {
+            json.append(firstResult ? "\n" : ",\n")
+                .append("    { \"name\": \"").append(result.getKey()).append("\"");
+
+            for (final Map.Entry<String, Long> metric : result.getValue().entrySet()) {
+                json.append(", \"").append(metric.getKey()).append("\": ")
+                    .append(metric.getValue());
+            }
+
+            json.append(" }");
+            firstResult = false;
+        }
+
+        json.append("\n  ]\n}\n");
+
+        Writer writer = null;
+
+        try {
+            writer = new FileWriter(output);
+            writer.write(json.toString());
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write " + output + '.', e);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static Properties getThresholds () {
+        if (sThresholds != null) {
+            return sThresholds;
+        }
+
+        final Properties thresholds = new Properties();
+        final InputStream in = SplitViewBenchmark.class.getResourceAsStream(THRESHOLDS_RESOURCE);
+
+        if (in == null) {
+            throw new IllegalStateException(THRESHOLDS_RESOURCE + " is missing.");
+        }
+
+        try {
+            thresholds.load(in);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not read " + THRESHOLDS_RESOURCE + '.', e);
+        } finally {
+            closeQuietly(in);
+        }
+
+        sThresholds = thresholds;
+
+        return thresholds;
+    }
+
+    private static void closeQuietly (final Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (final IOException ignored) { }
+    }
+}
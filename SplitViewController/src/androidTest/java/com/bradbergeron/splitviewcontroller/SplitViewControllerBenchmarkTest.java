@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith (RobolectricTestRunner.class)
+@Config (emulateSdk = 18)
+public class SplitViewControllerBenchmarkTest {
+    private static final int MAX_RESTORE_DEPTH = 20;
+    private static final int RESTORE_ITERATIONS = 3;
+
+    private SplitViewTestHost mHost;
+    private TestSplitViewController mController;
+
+
+    @Before
+    public void setUp () {
+        mHost = new SplitViewTestHost(new TestSplitViewController());
+        mController = mHost.getController();
+    }
+
+    @After
+    public void tearDown () {
+        mHost.destroy();
+    }
+
+
+    // ================================================================================
+    // Navigation
+    // ================================================================================
+
+    @Test
+    public void setDetailFragment () {
+        SplitViewBenchmark.measure("setDetailFragment", mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                setDetailStack(3);
+            }
+
+            @Override
+            public void run () {
+                mController.setDetailFragment(TestDetailFragment.newInstance("root"));
+            }
+        });
+    }
+
+    @Test
+    public void pushDetailFragment () {
+        SplitViewBenchmark.measure("pushDetailFragment", mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                setDetailStack(1);
+            }
+
+            @Override
+            public void run () {
+                mController.pushDetailFragment(
+                        TestDetailFragment.newInstance("pushed"),
+                        mController.getPaneFragmentManager().beginTransaction());
+            }
+        });
+    }
+
+    @Test
+    public void popDetailFragment () {
+        SplitViewBenchmark.measure("popDetailFragment", mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                setDetailStack(2);
+            }
+
+            @Override
+            public void run () {
+                mController.popDetailFragment();
+            }
+        });
+    }
+
+
+    // ================================================================================
+    // Configuration
+    // ================================================================================
+
+    // The controller configures its panes again without the layout changing.
+    @Test
+    public void configureChildFragments () {
+        SplitViewBenchmark.measure("configureChildFragments", mHost,
+                                   new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                setDetailStack(2);
+            }
+
+            @Override
+            public void run () {
+                mController.onConfigurationChanged(
+                        mController.getResources().getConfiguration());
+            }
+        });
+    }
+
+    @Test
+    public void splitToSinglePane () {
+        SplitViewBenchmark.measure("splitToSinglePane", mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                changeLayout(true);
+                setDetailStack(2);
+            }
+
+            @Override
+            public void run () {
+                changeLayout(false);
+            }
+        });
+    }
+
+    @Test
+    public void singleToSplitPane () {
+        SplitViewBenchmark.measure("singleToSplitPane", mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                changeLayout(false);
+                setDetailStack(2);
+            }
+
+            @Override
+            public void run () {
+                changeLayout(true);
+            }
+        });
+    }
+
+
+    // ================================================================================
+    // Restoration
+    // ================================================================================
+
+    // Resuming after process death, with every entry restored by the FragmentManager and with
+    // only the top entry restored.
+    @Test
+    public void restoreDetailStack () {
+        for (int depth = 1; depth <= MAX_RESTORE_DEPTH; depth++) {
+            measureRestore("restoreDetailStack.eager", depth, false);
+            measureRestore("restoreDetailStack.lazy", depth, true);
+        }
+    }
+
+    private void measureRestore (final String group, final int depth,
+                                 final boolean lazyRestoration) {
+        final String name = group + ".depth" + ((depth < 10) ? "0" : "") + depth;
+
+        final Map<String, Long> metrics = SplitViewBenchmark.measure(
+                name, RESTORE_ITERATIONS, mHost, new SplitViewBenchmark.Operation() {
+            @Override
+            public void setUp () {
+                mController = mHost.getController();
+                mController.setLazyDetailRestorationEnabled(lazyRestoration);
+                setDetailStack(depth);
+            }
+
+            @Override
+            public void run () {
+                mHost.recreate();
+            }
+        });
+
+        mController = mHost.getController();
+
+        // The thresholds are upper bounds, but restoring fewer fragments than this would leave
+        // entries without one.
+        assertEquals(lazyRestoration ? 1 : depth,
+                     metrics.get(SplitViewBenchmark.METRIC_INSTANTIATIONS).longValue());
+    }
+
+
+    // ================================================================================
+    // Helpers
+    // ================================================================================
+
+    private void setDetailStack (final int depth) {
+        mController.setDetailFragment(TestDetailFragment.newInstance("root"));
+        mHost.flush();
+
+        for (int i = 1; i < depth; i++) {
+            mController.pushDetailFragment(
+                    TestDetailFragment.newInstance("detail" + i),
+                    mController.getPaneFragmentManager().beginTransaction());
+            mHost.flush();
+        }
+    }
+
+    private void changeLayout (final boolean splitViewLayout) {
+        mController.setSplitViewLayout(splitViewLayout);
+        mController.onConfigurationChanged(mController.getResources().getConfiguration());
+    }
+}
@@ -0,0 +1,1262 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.app.DialogFragment;
+import android.app.Fragment;
+import android.app.FragmentManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith (RobolectricTestRunner.class)
+@Config (emulateSdk = 18)
+public class SplitViewControllerTest {
+    private static final long ASYNC_TIMEOUT_MILLIS = 5000;
+
+    private SplitViewTestHost mHost;
+    private TestSplitViewController mController;
+
+
+    @Before
+    public void setUp () {
+        TestDetailFragment.resetCounts();
+
+        mHost = new SplitViewTestHost(new TestSplitViewController());
+        mController = mHost.getController();
+    }
+
+    @After
+    public void tearDown () {
+        mHost.destroy();
+    }
+
+
+    // ================================================================================
+    // Set
+    // ================================================================================
+
+    @Test
+    public void setDetailFragmentShowsDetailNextToMaster () {
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("a");
+
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        assertTrue(detailFragment.isVisible());
+        assertTrue(getMasterFragment().isVisible());
+    }
+
+    @Test
+    public void setDetailFragmentReplacesStackWithoutRecreatingIt () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+        pushDetailFragment("c");
+
+        TestDetailFragment.resetCounts();
+
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("d");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals(1, TestDetailFragment.sViewCreations);
+        assertEquals(1, mController.getLiveDetailEntryCount());
+        assertSame(detailFragment, getDetailFragment());
+    }
+
+    @Test
+    public void setDetailFragmentNullClearsStack () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+
+        mController.setDetailFragment(null);
+        mHost.flush();
+
+        assertEquals(0, mController.getLiveDetailEntryCount());
+        assertNull(getDetailFragment());
+        assertTrue(getMasterFragment().isVisible());
+    }
+
+
+    // ================================================================================
+    // Detail Stack
+    // ================================================================================
+
+    @Test
+    public void setDetailStackRealizesUnkeyedEntriesWhenPoppedTo () {
+        mController.setDetailFragmentCacheSize(4);
+
+        mController.setDetailFragment(obtainDetailFragment(null, "x"));
+        mHost.flush();
+        mController.setDetailStack(Arrays.asList(createDescriptor(null, "a"),
+                                                 createDescriptor(null, "b"),
+                                                 createDescriptor(null, "c")));
+        mHost.flush();
+
+        assertEquals("c", getDetailFragment().getName());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("b", getDetailFragment().getName());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+
+    // ================================================================================
+    // Detail Fragment Cache
+    // ================================================================================
+
+    @Test
+    public void obtainDetailFragmentReusesCachedFragment () {
+        mController.setDetailFragmentCacheSize(4);
+
+        final TestDetailFragment detailFragment = obtainDetailFragment("a", "a");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+        mController.setDetailFragment(obtainDetailFragment("b", "b"));
+        mHost.flush();
+
+        assertSame(detailFragment, obtainDetailFragment("a", "a"));
+    }
+
+    @Test
+    public void obtainDetailFragmentNeverCachesUnkeyedFragments () {
+        mController.setDetailFragmentCacheSize(4);
+
+        mController.setDetailFragment(obtainDetailFragment(null, "a"));
+        mHost.flush();
+        mController.setDetailFragment(obtainDetailFragment(null, "b"));
+        mHost.flush();
+
+        assertEquals("b", getDetailFragment().getName());
+        assertNotSame(getDetailFragment(), obtainDetailFragment(null, "c"));
+    }
+
+
+    // ================================================================================
+    // Detail Prefetching
+    // ================================================================================
+
+    @Test
+    public void prefetchedDetailFragmentIsShownWhenObtained () {
+        prefetchDetailFragment("a");
+
+        final PrefetchDetailFragment detailFragment = obtainPrefetchDetailFragment("a");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        assertTrue(detailFragment.mPrefetched);
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals(1, mController.getPrefetchHitCount());
+        assertEquals(0, mController.getPrefetchMissCount());
+        assertSame(detailFragment, getDetailFragment());
+    }
+
+    @Test
+    public void prefetchIsMissedWhenAnotherFragmentIsObtained () {
+        final PrefetchDetailFragment prefetchedFragment = prefetchDetailFragment("a");
+
+        final PrefetchDetailFragment detailFragment = obtainPrefetchDetailFragment("b");
+
+        assertNotSame(prefetchedFragment, detailFragment);
+        assertTrue(prefetchedFragment.mDiscarded);
+        assertEquals(2, TestDetailFragment.sInstantiations);
+        assertEquals(0, mController.getPrefetchHitCount());
+        assertEquals(1, mController.getPrefetchMissCount());
+    }
+
+    @Test
+    public void cancelDetailPrefetchDiscardsFragment () {
+        final PrefetchDetailFragment prefetchedFragment = prefetchDetailFragment("a");
+
+        mController.cancelDetailPrefetch();
+
+        assertTrue(prefetchedFragment.mDiscarded);
+        assertEquals(1, mController.getPrefetchMissCount());
+        assertNotSame(prefetchedFragment, obtainPrefetchDetailFragment("a"));
+        assertEquals(0, mController.getPrefetchHitCount());
+    }
+
+
+    // ================================================================================
+    // Push And Pop
+    // ================================================================================
+
+    @Test
+    public void pushDetailFragmentDetachesParent () {
+        final TestDetailFragment parentFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(parentFragment);
+        mHost.flush();
+
+        final TestDetailFragment detailFragment = pushDetailFragment("b");
+
+        assertTrue(parentFragment.isDetached());
+        assertTrue(detailFragment.isVisible());
+        assertSame(detailFragment, getDetailFragment());
+    }
+
+    @Test
+    public void popDetailFragmentReattachesParentWithoutRecreatingIt () {
+        final TestDetailFragment parentFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(parentFragment);
+        mHost.flush();
+        pushDetailFragment("b");
+
+        TestDetailFragment.resetCounts();
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals(0, TestDetailFragment.sInstantiations);
+        assertEquals(1, TestDetailFragment.sViewCreations);
+        assertTrue(parentFragment.isVisible());
+        assertSame(parentFragment, getDetailFragment());
+    }
+
+    @Test
+    public void onBackPressedPopsDetailStack () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+
+        assertTrue(mController.onBackPressed());
+        mHost.flush();
+        assertEquals("a", getDetailFragment().getName());
+
+        assertTrue(mController.onBackPressed());
+        mHost.flush();
+        assertNull(getDetailFragment());
+
+        assertFalse(mController.onBackPressed());
+    }
+
+    @Test
+    public void foreignBackStackEntryKeepsDetailStack () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        final TestDetailFragment detailFragment = pushDetailFragment("b");
+
+        final FragmentManager fragmentManager = mController.getPaneFragmentManager();
+        new DialogFragment().show(fragmentManager.beginTransaction().addToBackStack(null),
+                                  "dialog");
+        mHost.flush();
+
+        assertEquals(2, mController.getLiveDetailEntryCount());
+        assertSame(detailFragment, getDetailFragment());
+
+        fragmentManager.popBackStack();
+        mHost.flush();
+
+        assertEquals(2, mController.getLiveDetailEntryCount());
+        assertSame(detailFragment, getDetailFragment());
+
+        assertTrue(mController.onBackPressed());
+        mHost.flush();
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+
+    @Test
+    public void maxLiveDetailDepthHibernatesDeepEntries () {
+        mController.setMaxLiveDetailDepth(2);
+
+        final TestDetailFragment rootFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(rootFragment);
+        mHost.flush();
+        pushDetailFragment("b");
+        pushDetailFragment("c");
+        final TestDetailFragment parentFragment = pushDetailFragment("d");
+        pushDetailFragment("e");
+
+        assertEquals(2, mController.getLiveDetailEntryCount());
+        assertEquals(3, mController.getHibernatedDetailEntryCount());
+        assertTrue(parentFragment.isDetached());
+        assertFalse(rootFragment.isAdded());
+
+        TestDetailFragment.resetCounts();
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertSame(parentFragment, getDetailFragment());
+        assertEquals(0, TestDetailFragment.sInstantiations);
+
+        // Every hibernated entry is created again, in order, when it is popped to.
+        final String[] names = { "c", "b", "a" };
+
+        for (int i = 0; i < names.length; i++) {
+            mController.popDetailFragment();
+            mHost.flush();
+
+            assertEquals(names[i], getDetailFragment().getName());
+            assertEquals(i + 1, TestDetailFragment.sInstantiations);
+            assertTrue(mController.getLiveDetailEntryCount() <= 2);
+        }
+
+        assertNotSame(rootFragment, getDetailFragment());
+    }
+
+
+    @Test
+    public void setDetailFragmentKeepsForeignBackStackEntry () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+
+        final DialogFragment dialogFragment = new DialogFragment();
+        dialogFragment.show(
+                mController.getPaneFragmentManager().beginTransaction().addToBackStack(null),
+                "dialog");
+        mHost.flush();
+
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("c");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        assertTrue(dialogFragment.isAdded());
+        assertSame(detailFragment, getDetailFragment());
+
+        mController.setDetailFragment(null);
+        mHost.flush();
+
+        assertTrue(dialogFragment.isAdded());
+    }
+
+
+    // ================================================================================
+    // Detail Requests
+    // ================================================================================
+
+    @Test
+    public void detailRequestsWithinSettleDelayBuildOnlyTheLast () {
+        requestDetailFragment("a");
+        requestDetailFragment("b");
+        requestDetailFragment("c");
+        mHost.flush();
+
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals(2, mController.getDroppedDetailRequestCount());
+        assertEquals("c", getDetailFragment().getName());
+    }
+
+    @Test
+    public void repeatedDetailRequestIsNotDropped () {
+        requestDetailFragment("a");
+        requestDetailFragment("a");
+        mHost.flush();
+
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals(0, mController.getDroppedDetailRequestCount());
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+
+    // ================================================================================
+    // Thread-Safe Navigation
+    // ================================================================================
+
+    @Test
+    public void postDetailFragmentFromBackgroundThread () throws InterruptedException {
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("a");
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run () {
+                mController.postDetailFragment(getMasterFragment(), detailFragment);
+            }
+        });
+
+        thread.start();
+        thread.join(ASYNC_TIMEOUT_MILLIS);
+
+        assertNull(getDetailFragment());
+
+        mHost.flush();
+
+        assertSame(detailFragment, getDetailFragment());
+    }
+
+    @Test
+    public void postDetailFragmentFromDetachedSourceIsIgnored () {
+        final TestDetailFragment sourceFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(sourceFragment);
+        mHost.flush();
+
+        mController.postDetailFragment(sourceFragment, TestDetailFragment.newInstance("b"));
+
+        // The source is removed before the posted command gets to run.
+        mController.setDetailFragment(TestDetailFragment.newInstance("c"));
+        mController.getPaneFragmentManager().executePendingTransactions();
+
+        assertFalse(sourceFragment.isAdded());
+
+        mHost.flush();
+
+        assertEquals("c", getDetailFragment().getName());
+    }
+
+
+    // ================================================================================
+    // Three Pane Layout
+    // ================================================================================
+
+    @Test
+    public void pushInThreePaneLayoutOpensSubDetailPane () {
+        mHost.destroy();
+        mHost = new SplitViewTestHost(new ThreePaneController());
+        mController = mHost.getController();
+
+        final TestDetailFragment rootFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(rootFragment);
+        mHost.flush();
+
+        assertEquals(View.GONE,
+                     getPaneContainer(ThreePaneController.SUB_DETAIL_CONTAINER_ID).getVisibility());
+
+        final TestDetailFragment detailFragment = pushDetailFragment("b");
+
+        assertEquals(View.VISIBLE,
+                     getPaneContainer(ThreePaneController.SUB_DETAIL_CONTAINER_ID).getVisibility());
+        assertEquals(ThreePaneController.SUB_DETAIL_CONTAINER_ID, detailFragment.getId());
+        assertTrue(detailFragment.isVisible());
+        assertTrue(rootFragment.isVisible());
+    }
+
+    @Test
+    public void popInThreePaneLayoutKeepsRootLive () {
+        mHost.destroy();
+        mHost = new SplitViewTestHost(new ThreePaneController());
+        mController = mHost.getController();
+
+        final TestDetailFragment rootFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(rootFragment);
+        mHost.flush();
+        pushDetailFragment("b");
+
+        TestDetailFragment.resetCounts();
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals(View.GONE,
+                     getPaneContainer(ThreePaneController.SUB_DETAIL_CONTAINER_ID).getVisibility());
+        assertEquals(0, TestDetailFragment.sInstantiations);
+        assertEquals(0, TestDetailFragment.sViewCreations);
+        assertTrue(rootFragment.isVisible());
+        assertSame(rootFragment, getDetailFragment());
+    }
+
+
+    // ================================================================================
+    // Transaction Batching
+    // ================================================================================
+
+    @Test
+    public void batchedSetAndPushCommitOnce () {
+        mController.setTransactionBatchingEnabled(true);
+
+        final int commits = mController.getOperationCounts().getCommitCount();
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("b");
+        mController.pushDetailFragment(detailFragment,
+                                       mController.getPaneFragmentManager().beginTransaction());
+        mHost.flush();
+
+        // One transaction and a back stack marker for each level.
+        assertEquals(3, mController.getOperationCounts().getCommitCount() - commits);
+        assertEquals(1, mController.getCoalescedCommitCount());
+        assertEquals(1, TestDetailFragment.sViewCreations);
+        assertSame(detailFragment, getDetailFragment());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+    @Test
+    public void batchedSetPushAndPopCommitOnce () {
+        mController.setTransactionBatchingEnabled(true);
+
+        final int commits = mController.getOperationCounts().getCommitCount();
+
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(detailFragment);
+        mController.pushDetailFragment(TestDetailFragment.newInstance("b"),
+                                       mController.getPaneFragmentManager().beginTransaction());
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals(2, mController.getOperationCounts().getCommitCount() - commits);
+        assertEquals(3, mController.getCoalescedCommitCount());
+        assertEquals(1, TestDetailFragment.sViewCreations);
+        assertSame(detailFragment, getDetailFragment());
+
+        assertTrue(mController.onBackPressed());
+        mHost.flush();
+        assertNull(getDetailFragment());
+    }
+
+    @Test
+    public void batchedOperationsAreCommittedBeforeStateIsSaved () {
+        mController.setTransactionBatchingEnabled(true);
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mController.pushDetailFragment(TestDetailFragment.newInstance("b"),
+                                       mController.getPaneFragmentManager().beginTransaction());
+
+        // Pausing, saving and stopping in the same frame must not commit after the save.
+        mHost.recreate();
+        mController = mHost.getController();
+
+        assertEquals("b", getDetailFragment().getName());
+    }
+
+    @Test
+    public void operationsRequestedWhilePausedWaitForResume () {
+        mController.setTransactionBatchingEnabled(true);
+
+        mHost.pause();
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+
+        assertNull(getDetailFragment());
+
+        mHost.resume();
+
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+
+    // ================================================================================
+    // Mode Changes
+    // ================================================================================
+
+    @Test
+    public void singlePaneLayoutHidesMasterBehindDetail () {
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        changeLayout(false);
+
+        assertTrue(getMasterFragment().isDetached());
+        assertTrue(detailFragment.isVisible());
+
+        changeLayout(true);
+
+        assertTrue(getMasterFragment().isVisible());
+        assertTrue(detailFragment.isVisible());
+    }
+
+    @Test
+    public void keepMasterPaneAliveHidesMasterUntilMemoryIsTrimmed () {
+        mController.setKeepMasterPaneAlive(true);
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+
+        changeLayout(false);
+
+        final TestMasterFragment masterFragment = getMasterFragment();
+
+        assertTrue(masterFragment.isHidden());
+        assertFalse(masterFragment.isDetached());
+        assertNotNull(masterFragment.getView());
+
+        mController.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        mHost.flush();
+
+        assertTrue(masterFragment.isDetached());
+        assertNull(masterFragment.getView());
+    }
+
+    @Test
+    public void singlePaneLayoutShowsMasterWithoutDetail () {
+        changeLayout(false);
+
+        assertTrue(getMasterFragment().isVisible());
+        assertNull(getDetailFragment());
+    }
+
+    @Test
+    public void singlePaneLayoutDrawsOnlyTheShowingPane () {
+        final TestPaneView masterContainer = getPaneContainer(
+                TestSplitViewController.MASTER_CONTAINER_ID);
+        final TestPaneView detailContainer = getPaneContainer(
+                TestSplitViewController.DETAIL_CONTAINER_ID);
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        changeLayout(false);
+        traverse(masterContainer, detailContainer);
+
+        assertEquals(View.GONE, masterContainer.getVisibility());
+        assertPaneCost(0, masterContainer);
+        assertPaneCost(1, detailContainer);
+
+        mController.setDetailFragment(null);
+        mHost.flush();
+        traverse(masterContainer, detailContainer);
+
+        assertEquals(View.GONE, detailContainer.getVisibility());
+        assertPaneCost(1, masterContainer);
+        assertPaneCost(0, detailContainer);
+    }
+
+
+    // ================================================================================
+    // Restoration
+    // ================================================================================
+
+    @Test
+    public void recreateRestoresDetailStack () {
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+
+        mHost.recreate();
+        mController = mHost.getController();
+
+        assertNotNull(getMasterFragment());
+        assertEquals("b", getDetailFragment().getName());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("a", getDetailFragment().getName());
+        assertTrue(getDetailFragment().isVisible());
+    }
+
+    @Test
+    public void childFragmentManagerControllerIsNotRetained () {
+        mHost.destroy();
+
+        // Robolectric leaves SDK_INT at 0, which would keep the Activity's fragment manager.
+        final int sdkInt = Build.VERSION.SDK_INT;
+        final TestSplitViewController controller = new TestSplitViewController();
+
+        Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT",
+                                                   Build.VERSION_CODES.JELLY_BEAN_MR2);
+
+        try {
+            controller.setChildFragmentManagerEnabled(true);
+            mHost = new SplitViewTestHost(controller);
+        } finally {
+            Robolectric.Reflection.setFinalStaticField(Build.VERSION.class, "SDK_INT", sdkInt);
+        }
+
+        assertTrue(controller.isChildFragmentManagerEnabled());
+        assertFalse(controller.getRetainInstance());
+    }
+
+
+    @Test
+    public void retentionBudgetRetainsHiddenFragmentsNearestTheTop () {
+        mController.setRetentionPolicy(SplitViewController.RETAIN_BUDGET);
+        mController.setRetentionBudget(1);
+
+        final TestDetailFragment rootFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(rootFragment);
+        mHost.flush();
+        final TestDetailFragment parentFragment = pushDetailFragment("b");
+        final TestDetailFragment detailFragment = pushDetailFragment("c");
+
+        mController.onSaveInstanceState(new Bundle());
+
+        // Visible fragments are always retained and do not count against the budget.
+        assertTrue(getMasterFragment().getRetainInstance());
+        assertTrue(detailFragment.getRetainInstance());
+        assertTrue(parentFragment.getRetainInstance());
+        assertFalse(rootFragment.getRetainInstance());
+    }
+
+    @Test
+    public void trimMemoryReleasesCoveredDetailFragmentsRightAway () {
+        mController.setDetailFragmentCacheSize(4);
+
+        final TestDetailFragment cachedFragment = obtainDetailFragment("x", "x");
+        mController.setDetailFragment(cachedFragment);
+        mHost.flush();
+
+        final TestDetailFragment rootFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(rootFragment);
+        mHost.flush();
+        final TestDetailFragment parentFragment = pushDetailFragment("b");
+        pushDetailFragment("c");
+
+        assertTrue(cachedFragment.getRetainInstance());
+        assertEquals(3, mController.getLiveDetailEntryCount());
+
+        mController.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        mHost.flush();
+
+        // Nothing waits for the instance state to be saved.
+        assertEquals(1, mController.getLiveDetailEntryCount());
+        assertEquals(2, mController.getHibernatedDetailEntryCount());
+        assertFalse(rootFragment.isAdded());
+        assertFalse(parentFragment.isAdded());
+        assertTrue(cachedFragment.isDetached());
+        assertFalse(cachedFragment.getRetainInstance());
+
+        TestDetailFragment.resetCounts();
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals("b", getDetailFragment().getName());
+    }
+
+    @Test
+    public void recreateRestoresRecyclableDetailView () {
+        mController.setDetailFragment(new RecyclableDetailFragment());
+        mHost.flush();
+
+        mHost.recreate();
+        mController = mHost.getController();
+
+        final Fragment fragment = mController.getPaneFragmentManager()
+                .findFragmentById(TestSplitViewController.DETAIL_CONTAINER_ID);
+
+        assertTrue(fragment instanceof RecyclableDetailFragment);
+        assertTrue(fragment.isVisible());
+    }
+
+    @Test
+    public void recreateRestoresAsyncDetailView () {
+        mController.setDetailFragment(new AsyncDetailFragment());
+        awaitAsyncView();
+
+        mHost.recreate();
+        mController = mHost.getController();
+
+        final AsyncDetailFragment fragment = (AsyncDetailFragment) mController
+                .getPaneFragmentManager()
+                .findFragmentById(TestSplitViewController.DETAIL_CONTAINER_ID);
+
+        assertNotNull(fragment.getBoundView());
+        assertTrue(fragment.isVisible());
+    }
+
+    @Test
+    public void lazyRestorationKeepsCoveredEntriesLiveDuringNavigation () {
+        mController.setLazyDetailRestorationEnabled(true);
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+        pushDetailFragment("c");
+
+        assertEquals(3, mController.getLiveDetailEntryCount());
+
+        TestDetailFragment.resetCounts();
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals(0, TestDetailFragment.sInstantiations);
+        assertEquals("b", getDetailFragment().getName());
+    }
+
+    @Test
+    public void recreateWithLazyRestorationRestoresOnlyTopEntry () {
+        mController.setLazyDetailRestorationEnabled(true);
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        pushDetailFragment("b");
+        pushDetailFragment("c");
+
+        TestDetailFragment.resetCounts();
+
+        mHost.recreate();
+        mController = mHost.getController();
+
+        assertEquals(1, TestDetailFragment.sInstantiations);
+        assertEquals(1, mController.getLiveDetailEntryCount());
+        assertEquals(2, mController.getHibernatedDetailEntryCount());
+        assertEquals("c", getDetailFragment().getName());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("b", getDetailFragment().getName());
+
+        mController.popDetailFragment();
+        mHost.flush();
+
+        assertEquals("a", getDetailFragment().getName());
+    }
+
+
+    // ================================================================================
+    // Asynchronous Inflation
+    // ================================================================================
+
+    @Test
+    public void asyncDetailViewIsInflatedOffTheMainThread () {
+        final AsyncDetailFragment fragment = new AsyncDetailFragment();
+
+        mController.setDetailFragment(fragment);
+        mHost.flush();
+
+        assertEquals(1, awaitAsyncView());
+        assertNotNull(fragment.getBoundView());
+        assertSame(fragment.getView(), fragment.getBoundView().getParent());
+    }
+
+    @Test
+    public void inflaterThreadIsDaemonAndStopsWhenInterrupted () throws InterruptedException {
+        // Without pooled views every detail view is inflated.
+        mController.setDetailViewPoolSize(0);
+
+        mController.setDetailFragment(new AsyncDetailFragment());
+        mHost.flush();
+        awaitAsyncView();
+
+        final Thread inflaterThread = getInflaterThread();
+
+        assertTrue(inflaterThread.isDaemon());
+
+        inflaterThread.interrupt();
+        inflaterThread.join(ASYNC_TIMEOUT_MILLIS);
+
+        assertFalse(inflaterThread.isAlive());
+
+        // The next inflation starts a new worker.
+        mController.getOperationCounts().reset();
+        mController.setDetailFragment(new AsyncDetailFragment());
+        mHost.flush();
+
+        assertEquals(1, awaitAsyncView());
+    }
+
+
+    // ================================================================================
+    // Pane Resizing
+    // ================================================================================
+
+    @Test
+    public void recreateRestoresResizedMasterPaneRatio () {
+        mHost.destroy();
+        mHost = new SplitViewTestHost(new SplitPaneController());
+        mController = mHost.getController();
+
+        final SplitPaneLayout splitPaneLayout = getSplitPaneLayout();
+        splitPaneLayout.setMasterPaneRatio(0.3f);
+        splitPaneLayout.getOnPaneResizeListener().onPaneResized(splitPaneLayout, 0.3f);
+
+        mHost.recreate();
+        mController = mHost.getController();
+
+        assertEquals(0.3f, awaitMasterPaneRatio(0.3f), 0f);
+    }
+
+
+    // ================================================================================
+    // Detail View Listeners
+    // ================================================================================
+
+    @Test
+    public void listenerRemovingItselfLeavesOtherListeners () {
+        final List<SplitViewDetailFragment> removedNotifications =
+                new ArrayList<SplitViewDetailFragment>();
+        final List<SplitViewDetailFragment> notifications =
+                new ArrayList<SplitViewDetailFragment>();
+
+        mController.addOnDetailViewChangedListener(
+                new SplitViewController.OnDetailViewChangedListener() {
+            @Override
+            public void onDetailViewChanged (final SplitViewDetailFragment detailViewFragment) {
+                removedNotifications.add(detailViewFragment);
+                mController.removeOnDetailViewChangedListener(this);
+            }
+        });
+        mController.addOnDetailViewChangedListener(
+                new SplitViewController.OnDetailViewChangedListener() {
+            @Override
+            public void onDetailViewChanged (final SplitViewDetailFragment detailViewFragment) {
+                notifications.add(detailViewFragment);
+            }
+        });
+
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("a");
+        mController.setDetailFragment(detailFragment);
+        mHost.flush();
+
+        assertEquals(Arrays.<SplitViewDetailFragment>asList(detailFragment), removedNotifications);
+        assertEquals(Arrays.<SplitViewDetailFragment>asList(detailFragment), notifications);
+
+        final TestDetailFragment pushedFragment = pushDetailFragment("b");
+
+        assertEquals(1, removedNotifications.size());
+        assertEquals(Arrays.<SplitViewDetailFragment>asList(detailFragment, pushedFragment),
+                     notifications);
+    }
+
+    @Test
+    public void changesWithinOneFrameNotifyOnce () {
+        final List<SplitViewDetailFragment> notifications =
+                new ArrayList<SplitViewDetailFragment>();
+
+        mController.addOnDetailViewChangedListener(
+                new SplitViewController.OnDetailViewChangedListener() {
+            @Override
+            public void onDetailViewChanged (final SplitViewDetailFragment detailViewFragment) {
+                notifications.add(detailViewFragment);
+            }
+        });
+
+        // Executing the transactions right away keeps every change ahead of the next frame.
+        final FragmentManager fragmentManager = mController.getPaneFragmentManager();
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        fragmentManager.executePendingTransactions();
+        mController.pushDetailFragment(TestDetailFragment.newInstance("b"),
+                                       fragmentManager.beginTransaction());
+        fragmentManager.executePendingTransactions();
+
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance("c");
+        mController.pushDetailFragment(detailFragment, fragmentManager.beginTransaction());
+        fragmentManager.executePendingTransactions();
+
+        assertTrue(notifications.isEmpty());
+
+        mHost.flush();
+
+        assertEquals(Arrays.<SplitViewDetailFragment>asList(detailFragment), notifications);
+    }
+
+
+    // ================================================================================
+    // Navigation Metrics
+    // ================================================================================
+
+    @Test
+    public void navigationMetricsCommitTimeIncludesTransactionExecution () {
+        final SplitViewNavigationMetrics[] reportedMetrics = new SplitViewNavigationMetrics[1];
+
+        mController.setNavigationMetricsListener(
+                new SplitViewController.NavigationMetricsListener() {
+                    @Override
+                    public void onNavigationMetrics (final SplitViewNavigationMetrics metrics) {
+                        reportedMetrics[0] = metrics;
+                    }
+                });
+
+        mController.setDetailFragment(TestDetailFragment.newInstance("a"));
+        mHost.flush();
+        mController.getView().getViewTreeObserver().dispatchOnPreDraw();
+
+        final SplitViewNavigationMetrics metrics = reportedMetrics[0];
+
+        // The detail view is created while the transaction is executed, so the commit time
+        // covers its inflation.
+        assertNotNull(metrics);
+        assertTrue(metrics.getInflateNanos() > 0);
+        assertTrue(metrics.getCommitNanos() >= metrics.getInflateNanos());
+        assertTrue(metrics.getFirstDrawNanos() >= metrics.getCommitNanos());
+    }
+
+
+    // ================================================================================
+    // Helpers
+    // ================================================================================
+
+    // Waits for the inflater thread and returns the number of views it inflated.
+    private int awaitAsyncView () {
+        final long deadline = System.currentTimeMillis() + ASYNC_TIMEOUT_MILLIS;
+
+        while (mController.getOperationCounts().getInflationCount() == 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("The detail view was not inflated.");
+            }
+
+            mHost.flush();
+            Thread.yield();
+        }
+
+        return mController.getOperationCounts().getInflationCount();
+    }
+
+    private static Thread getInflaterThread () {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("SplitViewController-Inflater".equals(thread.getName())) {
+                return thread;
+            }
+        }
+
+        fail("The inflater thread is not running.");
+
+        return null;
+    }
+
+    // Waits for the saved ratios to be loaded and returns the ratio the layout ends up with.
+    private float awaitMasterPaneRatio (final float masterPaneRatio) {
+        final long deadline = System.currentTimeMillis() + ASYNC_TIMEOUT_MILLIS;
+
+        while (getSplitPaneLayout().getMasterPaneRatio() != masterPaneRatio &&
+               System.currentTimeMillis() < deadline) {
+            mHost.flush();
+            Thread.yield();
+        }
+
+        return getSplitPaneLayout().getMasterPaneRatio();
+    }
+
+    private SplitPaneLayout getSplitPaneLayout () {
+        return (SplitPaneLayout) mController.getView();
+    }
+
+    private static SplitViewDetailDescriptor createDescriptor (final String argumentKey,
+                                                               final String name) {
+        final Bundle args = new Bundle();
+        args.putString(TestDetailFragment.ARG_NAME, name);
+
+        return new SplitViewDetailDescriptor(TestDetailFragment.class, argumentKey, args);
+    }
+
+    private TestDetailFragment obtainDetailFragment (final String argumentKey,
+                                                     final String name) {
+        final Bundle args = new Bundle();
+        args.putString(TestDetailFragment.ARG_NAME, name);
+
+        return mController.obtainDetailFragment(TestDetailFragment.class, argumentKey, args);
+    }
+
+    private TestDetailFragment pushDetailFragment (final String name) {
+        final TestDetailFragment detailFragment = TestDetailFragment.newInstance(name);
+
+        mController.pushDetailFragment(detailFragment,
+                                       mController.getPaneFragmentManager().beginTransaction());
+        mHost.flush();
+
+        return detailFragment;
+    }
+
+    private PrefetchDetailFragment prefetchDetailFragment (final String name) {
+        final Bundle args = new Bundle();
+        args.putString(TestDetailFragment.ARG_NAME, name);
+
+        PrefetchDetailFragment.sLastPrefetched = null;
+        mController.prefetchDetailFragment(PrefetchDetailFragment.class, name, args);
+
+        assertNotNull(PrefetchDetailFragment.sLastPrefetched);
+
+        return PrefetchDetailFragment.sLastPrefetched;
+    }
+
+    private PrefetchDetailFragment obtainPrefetchDetailFragment (final String name) {
+        final Bundle args = new Bundle();
+        args.putString(TestDetailFragment.ARG_NAME, name);
+
+        return mController.obtainDetailFragment(PrefetchDetailFragment.class, name, args);
+    }
+
+    private void requestDetailFragment (final String name) {
+        final Bundle args = new Bundle();
+        args.putString(TestDetailFragment.ARG_NAME, name);
+
+        mController.requestDetailFragment(TestDetailFragment.class, name, args);
+    }
+
+    private void changeLayout (final boolean splitViewLayout) {
+        mController.setSplitViewLayout(splitViewLayout);
+        mController.onConfigurationChanged(mController.getResources().getConfiguration());
+        mHost.flush();
+    }
+
+    private TestDetailFragment getDetailFragment () {
+        final Fragment fragment = mController.getPaneFragmentManager()
+                .findFragmentById(TestSplitViewController.DETAIL_CONTAINER_ID);
+
+        return (fragment != null && !fragment.isDetached()) ? (TestDetailFragment) fragment
+                                                            : null;
+    }
+
+    private TestPaneView getPaneContainer (final int id) {
+        return (TestPaneView) mController.getView().findViewById(id);
+    }
+
+    // Measures, lays out and draws the controller's view once, as a frame after a
+    // requestLayout() would.
+    private void traverse (final TestPaneView... paneContainers) {
+        final View view = mController.getView();
+        final int width = 1280;
+        final int height = 800;
+
+        for (final TestPaneView paneContainer : paneContainers) {
+            paneContainer.resetCounts();
+            paneContainer.forceLayout();
+        }
+
+        view.forceLayout();
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                     View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+
+        // Robolectric stubs out View.draw(), so the real one is called to reach the children.
+        Robolectric.directlyOn(view, View.class).draw(
+                new Canvas(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)));
+    }
+
+    private static void assertPaneCost (final int count, final TestPaneView paneContainer) {
+        assertEquals(count, paneContainer.mMeasureCount);
+        assertEquals(count, paneContainer.mLayoutCount);
+        assertEquals(count, paneContainer.mDrawCount);
+    }
+
+    private TestMasterFragment getMasterFragment () {
+        return (TestMasterFragment) mController.getPaneFragmentManager()
+                .findFragmentById(TestSplitViewController.MASTER_CONTAINER_ID);
+    }
+
+
+    public static class SplitPaneController extends TestSplitViewController {
+        @Override
+        public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                                  final Bundle savedInstanceState) {
+            final SplitPaneLayout root = new SplitPaneLayout(inflater.getContext());
+            root.setPaneResizable(true);
+            root.addView(createContainer(root, MASTER_CONTAINER_ID));
+            root.addView(createContainer(root, DETAIL_CONTAINER_ID));
+
+            if (getPaneFragmentManager().findFragmentById(MASTER_CONTAINER_ID) == null) {
+                setMasterFragment(new TestMasterFragment());
+            }
+
+            return root;
+        }
+    }
+
+    public static class ThreePaneController extends TestSplitViewController {
+        static final int SUB_DETAIL_CONTAINER_ID = 0x00100003;
+
+        @Override
+        public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                                  final Bundle savedInstanceState) {
+            final SplitPaneLayout root = new SplitPaneLayout(inflater.getContext());
+            root.addView(createContainer(root, MASTER_CONTAINER_ID));
+            root.addView(new View(inflater.getContext()), new ViewGroup.LayoutParams(1,
+                    ViewGroup.LayoutParams.MATCH_PARENT));
+            root.addView(createContainer(root, DETAIL_CONTAINER_ID));
+
+            final View subDetailContainer = createContainer(root, SUB_DETAIL_CONTAINER_ID);
+            subDetailContainer.setVisibility(View.GONE);
+            root.addView(subDetailContainer);
+
+            if (getPaneFragmentManager().findFragmentById(MASTER_CONTAINER_ID) == null) {
+                setMasterFragment(new TestMasterFragment());
+            }
+
+            return root;
+        }
+
+        @Override
+        public int getSubDetailFragmentContainerId () {
+            return SUB_DETAIL_CONTAINER_ID;
+        }
+    }
+
+    public static class PrefetchDetailFragment extends TestDetailFragment {
+        static PrefetchDetailFragment sLastPrefetched;
+
+        boolean mPrefetched;
+        boolean mDiscarded;
+
+        @Override
+        protected void onPrefetch (final Context context) {
+            mPrefetched = true;
+            sLastPrefetched = this;
+        }
+
+        @Override
+        protected void onPrefetchDiscarded () {
+            mDiscarded = true;
+        }
+    }
+
+    public static class RecyclableDetailFragment extends SplitViewDetailFragment {
+        @Override
+        public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                                  final Bundle savedInstanceState) {
+            return inflateRecyclableView(inflater, android.R.layout.simple_list_item_1,
+                                         container);
+        }
+    }
+
+    public static class AsyncDetailFragment extends SplitViewDetailFragment {
+        private View mBoundView;
+
+        @Override
+        protected int getAsyncLayoutId () {
+            return android.R.layout.simple_list_item_1;
+        }
+
+        @Override
+        protected void onRebind (final View view, final Bundle args) {
+            mBoundView = view;
+        }
+
+        View getBoundView () {
+            return mBoundView;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.content.res.Configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith (RobolectricTestRunner.class)
+@Config (emulateSdk = 18)
+public class SplitViewLayoutPolicyTest {
+    private static final int SPLIT_ENTER_WIDTH_DP = 600;
+    private static final int SPLIT_EXIT_WIDTH_DP = 480;
+
+    private SplitViewLayoutPolicy mLayoutPolicy;
+
+
+    @Before
+    public void setUp () {
+        mLayoutPolicy = new SplitViewLayoutPolicy(SPLIT_ENTER_WIDTH_DP, SPLIT_EXIT_WIDTH_DP);
+    }
+
+
+    // ================================================================================
+    // Hysteresis
+    // ================================================================================
+
+    @Test
+    public void splitLayoutIsEnteredAtEnterWidth () {
+        assertFalse(update(SPLIT_ENTER_WIDTH_DP - 1));
+        assertFalse(mLayoutPolicy.isSplitViewLayout());
+
+        assertTrue(update(SPLIT_ENTER_WIDTH_DP));
+        assertTrue(mLayoutPolicy.isSplitViewLayout());
+    }
+
+    @Test
+    public void splitLayoutIsKeptDownToExitWidth () {
+        update(SPLIT_ENTER_WIDTH_DP);
+
+        assertFalse(update(SPLIT_ENTER_WIDTH_DP - 1));
+        assertFalse(update(SPLIT_EXIT_WIDTH_DP));
+        assertTrue(mLayoutPolicy.isSplitViewLayout());
+
+        assertTrue(update(SPLIT_EXIT_WIDTH_DP - 1));
+        assertFalse(mLayoutPolicy.isSplitViewLayout());
+    }
+
+    @Test
+    public void singlePaneLayoutIsKeptUpToEnterWidth () {
+        update(SPLIT_ENTER_WIDTH_DP);
+        update(SPLIT_EXIT_WIDTH_DP - 1);
+
+        assertFalse(update(SPLIT_EXIT_WIDTH_DP));
+        assertFalse(update(SPLIT_ENTER_WIDTH_DP - 1));
+        assertFalse(mLayoutPolicy.isSplitViewLayout());
+
+        assertTrue(update(SPLIT_ENTER_WIDTH_DP));
+        assertTrue(mLayoutPolicy.isSplitViewLayout());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void exitWidthAboveEnterWidthIsRejected () {
+        new SplitViewLayoutPolicy(SPLIT_EXIT_WIDTH_DP, SPLIT_ENTER_WIDTH_DP);
+    }
+
+
+    // ================================================================================
+    // Helpers
+    // ================================================================================
+
+    private boolean update (final int screenWidthDp) {
+        final Configuration configuration = new Configuration();
+        configuration.screenWidthDp = screenWidthDp;
+
+        return mLayoutPolicy.update(configuration);
+    }
+}
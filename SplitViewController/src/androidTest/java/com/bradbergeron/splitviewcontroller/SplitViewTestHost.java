@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.app.Activity;
+import android.app.FragmentManager;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.widget.FrameLayout;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.ActivityController;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// Hosts a controller in a resumed Activity. The main looper is paused, so posted work only runs
+// when flush() is called, the way it would after the current message on a device.
+final class SplitViewTestHost {
+    private static final int CONTENT_ID = 0x00100000;
+    private static final String CONTROLLER_TAG = "controller";
+
+    private ActivityController<HostActivity> mActivityController;
+    private TestSplitViewController mController;
+
+
+    SplitViewTestHost (final TestSplitViewController controller) {
+        Robolectric.pauseMainLooper();
+
+        mActivityController = Robolectric.buildActivity(HostActivity.class).create();
+        mController = controller;
+
+        mActivityController.get().getFragmentManager().beginTransaction()
+                .add(CONTENT_ID, controller, CONTROLLER_TAG).commit();
+
+        mActivityController.start().resume().visible();
+        flush();
+    }
+
+
+    // ================================================================================
+    // Host
+    // ================================================================================
+
+    TestSplitViewController getController () {
+        return mController;
+    }
+
+    Activity getActivity () {
+        return mActivityController.get();
+    }
+
+    FragmentManager getFragmentManager () {
+        return getActivity().getFragmentManager();
+    }
+
+    void flush () {
+        do {
+            Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        } while (mController.getPaneFragmentManager().executePendingTransactions() |
+                 getFragmentManager().executePendingTransactions());
+    }
+
+    void pause () {
+        mActivityController.pause();
+    }
+
+    void resume () {
+        mActivityController.resume();
+        flush();
+    }
+
+    // Recreates the Activity from its saved state, as after the process was killed. Retained
+    // instances are not carried over, so every fragment is restored. The controller is looked
+    // up again afterwards.
+    void recreate () {
+        final Bundle outState = new Bundle();
+
+        // The state is saved between onPause() and onStop(), as on Honeycomb and later.
+        mActivityController.pause().saveInstanceState(outState).stop().destroy();
+
+        mActivityController = Robolectric.buildActivity(HostActivity.class).create(outState);
+
+        mController = (TestSplitViewController) getFragmentManager()
+                .findFragmentByTag(CONTROLLER_TAG);
+
+        mActivityController.start().restoreInstanceState(outState).resume().visible();
+        flush();
+    }
+
+    void destroy () {
+        mActivityController.pause().stop().destroy();
+        Robolectric.unPauseMainLooper();
+    }
+
+
+    // ================================================================================
+    // Host Activity
+    // ================================================================================
+
+    // Robolectric's Activity shadow saves nothing, so the fragment state is saved here the way
+    // Activity.onSaveInstanceState() does it.
+    public static class HostActivity extends Activity {
+        private static final String FRAGMENTS_TAG = "android:fragments";
+
+        // Restored fragments create their views right after onCreate(), so the content has to
+        // be in place by then.
+        @Override
+        protected void onCreate (final Bundle savedInstanceState) {
+            super.onCreate(savedInstanceState);
+
+            final FrameLayout content = new FrameLayout(this);
+            content.setId(CONTENT_ID);
+            setContentView(content);
+        }
+
+        @Override
+        protected void onSaveInstanceState (final Bundle outState) {
+            try {
+                final Field fragmentsField = Activity.class.getDeclaredField("mFragments");
+                fragmentsField.setAccessible(true);
+
+                final Object fragments = fragmentsField.get(this);
+                final Method saveAllState = fragments.getClass().getDeclaredMethod("saveAllState");
+                saveAllState.setAccessible(true);
+
+                final Parcelable state = (Parcelable) saveAllState.invoke(fragments);
+
+                if (state != null) {
+                    outState.putParcelable(FRAGMENTS_TAG, state);
+                }
+            } catch (final Exception e) {
+                throw new IllegalStateException("Fragment state could not be saved.", e);
+            }
+        }
+    }
+}
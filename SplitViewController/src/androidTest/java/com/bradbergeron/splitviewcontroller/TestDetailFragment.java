@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+// Counts its own instantiations and view creations, so tests see every one of them, not only
+// those the controller performs itself.
+public class TestDetailFragment extends SplitViewDetailFragment {
+    static final String ARG_NAME = "name";
+
+    private static final int ROW_COUNT = 8;
+
+    static int sInstantiations;
+    static int sViewCreations;
+
+
+    public TestDetailFragment () {
+        sInstantiations++;
+    }
+
+    static TestDetailFragment newInstance (final String name) {
+        final Bundle args = new Bundle();
+        args.putString(ARG_NAME, name);
+
+        final TestDetailFragment detailFragment = new TestDetailFragment();
+        detailFragment.setArguments(args);
+
+        return detailFragment;
+    }
+
+    static void resetCounts () {
+        sInstantiations = 0;
+        sViewCreations = 0;
+    }
+
+
+    // ================================================================================
+    // Fragment Lifecycle
+    // ================================================================================
+
+    @Override
+    public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                              final Bundle savedInstanceState) {
+        sViewCreations++;
+
+        final LinearLayout view = new LinearLayout(inflater.getContext());
+        view.setOrientation(LinearLayout.VERTICAL);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final TextView row = new TextView(inflater.getContext());
+            row.setText(getName());
+            view.addView(row);
+        }
+
+        return view;
+    }
+
+    String getName () {
+        return (getArguments() != null) ? getArguments().getString(ARG_NAME) : null;
+    }
+}
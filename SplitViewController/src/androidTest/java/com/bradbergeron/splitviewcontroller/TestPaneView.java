@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.widget.FrameLayout;
+
+// Counts how often it is measured, laid out and drawn, so tests see what a traversal costs each
+// pane.
+public class TestPaneView extends FrameLayout {
+    int mMeasureCount;
+    int mLayoutCount;
+    int mDrawCount;
+
+
+    public TestPaneView (final Context context) {
+        super(context);
+    }
+
+    void resetCounts () {
+        mMeasureCount = 0;
+        mLayoutCount = 0;
+        mDrawCount = 0;
+    }
+
+
+    // ================================================================================
+    // Measure, Layout & Draw
+    // ================================================================================
+
+    @Override
+    protected void onMeasure (final int widthMeasureSpec, final int heightMeasureSpec) {
+        mMeasureCount++;
+
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout (final boolean changed, final int left, final int top,
+                             final int right, final int bottom) {
+        mLayoutCount++;
+
+        super.onLayout(changed, left, top, right, bottom);
+    }
+
+    // A view group without a background skips draw() and goes straight to dispatchDraw().
+    @Override
+    protected void dispatchDraw (final Canvas canvas) {
+        mDrawCount++;
+
+        super.dispatchDraw(canvas);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+public class TestSplitViewController extends SplitViewController {
+    static final int MASTER_CONTAINER_ID = 0x00100001;
+    static final int DETAIL_CONTAINER_ID = 0x00100002;
+
+    private boolean mSplitViewLayout = true;
+
+
+    // ================================================================================
+    // Fragment Lifecycle
+    // ================================================================================
+
+    @Override
+    public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                              final Bundle savedInstanceState) {
+        final FrameLayout root = new FrameLayout(inflater.getContext());
+        root.addView(createContainer(root, MASTER_CONTAINER_ID));
+        root.addView(createContainer(root, DETAIL_CONTAINER_ID));
+
+        if (getPaneFragmentManager().findFragmentById(MASTER_CONTAINER_ID) == null) {
+            setMasterFragment(new TestMasterFragment());
+        }
+
+        return root;
+    }
+
+    static View createContainer (final ViewGroup root, final int id) {
+        final TestPaneView container = new TestPaneView(root.getContext());
+        container.setId(id);
+
+        return container;
+    }
+
+
+    // ================================================================================
+    // Split View Controller
+    // ================================================================================
+
+    @Override
+    public int getMasterFragmentContainerId () {
+        return MASTER_CONTAINER_ID;
+    }
+
+    @Override
+    public int getDetailFragmentContainerId () {
+        return DETAIL_CONTAINER_ID;
+    }
+
+    @Override
+    public boolean isSplitViewLayout () {
+        return mSplitViewLayout;
+    }
+
+    void setSplitViewLayout (final boolean splitViewLayout) {
+        mSplitViewLayout = splitViewLayout;
+    }
+
+
+    // ================================================================================
+    // Split View Navigation Listener
+    // ================================================================================
+
+    @Override
+    public boolean usesNavigationDrawer () {
+        return false;
+    }
+
+    @Override
+    public void setNavigationDrawerEnabled (final boolean enabled) { }
+
+    @Override
+    public boolean shouldShowActionBarUpIndicator (final int detailItemCount) {
+        return false;
+    }
+}
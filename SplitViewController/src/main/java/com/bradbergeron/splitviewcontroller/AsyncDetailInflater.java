@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.view.InflateException;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+final class AsyncDetailInflater {
+    private static final String[] VIEW_CLASS_PREFIXES =
+            {"android.widget.", "android.webkit.", "android.app.", "android.view."};
+
+    private static final BlockingQueue<Request> sRequests = new LinkedBlockingQueue<Request>();
+    private static Thread sInflaterThread;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+
+    // ================================================================================
+    // Inflation
+    // ================================================================================
+
+    Request inflate (final LayoutInflater inflater, final int layoutResId,
+                     final ViewGroup placeholder, final Callback callback) {
+        final Request request = new Request(new WorkerLayoutInflater(inflater),
+                                            layoutResId, placeholder, callback);
+
+        enqueue(request);
+
+        return request;
+    }
+
+    // The worker is a plain thread without a Looper, so a view that needs one in its
+    // constructor fails there and is inflated on the main thread instead.
+    private static synchronized void enqueue (final Request request) {
+        sRequests.add(request);
+
+        if (sInflaterThread == null) {
+            startInflaterThread();
+        }
+    }
+
+    // The worker never keeps the process alive, and it stops when it is interrupted.
+    private static void startInflaterThread () {
+        sInflaterThread = new Thread(new Runnable() {
+            @Override
+            public void run () {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+                try {
+                    while (true) {
+                        sRequests.take().run();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                onInflaterThreadStopped();
+            }
+        }, "SplitViewController-Inflater");
+        sInflaterThread.setDaemon(true);
+        sInflaterThread.start();
+    }
+
+    private static synchronized void onInflaterThreadStopped () {
+        sInflaterThread = null;
+
+        // Requests queued while the worker was stopping get a new one.
+        if (!sRequests.isEmpty()) {
+            startInflaterThread();
+        }
+    }
+
+    interface Callback {
+        public void onInflated (final ViewGroup placeholder, final View view);
+
+        public void onInflationFailed (final ViewGroup placeholder, final RuntimeException e);
+    }
+
+    final class Request implements Runnable {
+        private final LayoutInflater mInflater;
+        private final int mLayoutResId;
+        private final ViewGroup mPlaceholder;
+        private final Callback mCallback;
+
+        private volatile boolean mCancelled;
+
+        private View mView;
+        private RuntimeException mException;
+
+        Request (final LayoutInflater inflater, final int layoutResId,
+                 final ViewGroup placeholder, final Callback callback) {
+            mInflater = inflater;
+            mLayoutResId = layoutResId;
+            mPlaceholder = placeholder;
+            mCallback = callback;
+        }
+
+        void cancel () {
+            mCancelled = true;
+        }
+
+        boolean isCancelled () {
+            return mCancelled;
+        }
+
+        @Override
+        public void run () {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                if (mCancelled) {
+                    return;
+                }
+
+                if (mView != null) {
+                    mCallback.onInflated(mPlaceholder, mView);
+                } else {
+                    mCallback.onInflationFailed(mPlaceholder, mException);
+                }
+
+                return;
+            }
+
+            if (mCancelled) {
+                return;
+            }
+
+            try {
+                mView = mInflater.inflate(mLayoutResId, mPlaceholder, false);
+            } catch (final RuntimeException e) {
+                mException = e;
+            }
+
+            mMainHandler.post(this);
+        }
+    }
+
+    // LayoutInflater keeps its view constructors in a static map that main thread inflation
+    // uses unsynchronized. This inflater creates views itself with a cache of its own, which
+    // only the worker thread touches.
+    private static final class WorkerLayoutInflater extends LayoutInflater
+            implements LayoutInflater.Factory2 {
+        private static final Class<?>[] CONSTRUCTOR_SIGNATURE =
+                {Context.class, AttributeSet.class};
+
+        private static final HashMap<String, Constructor<? extends View>> sConstructors =
+                new HashMap<String, Constructor<? extends View>>();
+
+        private final Factory2 mFactory2;
+        private final Factory mFactory;
+
+        WorkerLayoutInflater (final LayoutInflater original) {
+            this(original.getFactory2(), original.getFactory(), original.getContext());
+        }
+
+        private WorkerLayoutInflater (final Factory2 factory2, final Factory factory,
+                                      final Context context) {
+            super(context);
+
+            // Factories set on the original inflater still get the first say.
+            mFactory2 = factory2;
+            mFactory = factory;
+
+            setFactory2(this);
+        }
+
+        @Override
+        public LayoutInflater cloneInContext (final Context newContext) {
+            return new WorkerLayoutInflater(mFactory2, mFactory, newContext);
+        }
+
+        @Override
+        public View onCreateView (final View parent, final String name, final Context context,
+                                  final AttributeSet attrs) {
+            View view = null;
+
+            if (mFactory2 != null) {
+                view = mFactory2.onCreateView(parent, name, context, attrs);
+            } else if (mFactory != null) {
+                view = mFactory.onCreateView(name, context, attrs);
+            }
+
+            return (view != null) ? view : createWorkerView(name, context, attrs);
+        }
+
+        @Override
+        public View onCreateView (final String name, final Context context,
+                                  final AttributeSet attrs) {
+            return onCreateView(null, name, context, attrs);
+        }
+
+        private static View createWorkerView (final String name, final Context context,
+                                              final AttributeSet attrs) {
+            try {
+                return getConstructor(name, context).newInstance(context, attrs);
+            } catch (final InflateException e) {
+                throw e;
+            } catch (final Exception e) {
+                final InflateException inflateException =
+                        new InflateException("Error inflating class " + name);
+                inflateException.initCause(e);
+
+                throw inflateException;
+            }
+        }
+
+        private static Constructor<? extends View> getConstructor (final String name,
+                                                                   final Context context)
+                throws ClassNotFoundException, NoSuchMethodException {
+            Constructor<? extends View> constructor = sConstructors.get(name);
+
+            if (constructor != null) {
+                return constructor;
+            }
+
+            final Class<? extends View> viewClass = loadViewClass(name, context);
+
+            constructor = viewClass.getConstructor(CONSTRUCTOR_SIGNATURE);
+            constructor.setAccessible(true);
+            sConstructors.put(name, constructor);
+
+            return constructor;
+        }
+
+        private static Class<? extends View> loadViewClass (final String name,
+                                                            final Context context)
+                throws ClassNotFoundException {
+            final ClassLoader classLoader = context.getClassLoader();
+
+            if (name.indexOf('.') != -1) {
+                return classLoader.loadClass(name).asSubclass(View.class);
+            }
+
+            for (final String prefix : VIEW_CLASS_PREFIXES) {
+                try {
+                    return classLoader.loadClass(prefix + name).asSubclass(View.class);
+                } catch (final ClassNotFoundException ignored) { }
+            }
+
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.app.Fragment;
+
+final class DetailEntry {
+    private SplitViewDetailDescriptor mDescriptor;
+    private Fragment.SavedState mSavedState;
+
+    private SplitViewDetailFragment mFragment;
+
+
+    DetailEntry (final SplitViewDetailDescriptor descriptor,
+                 final SplitViewDetailFragment fragment) {
+        mDescriptor = descriptor;
+        mFragment = fragment;
+    }
+
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    SplitViewDetailDescriptor getDescriptor () {
+        return mDescriptor;
+    }
+
+    SplitViewDetailFragment getFragment () {
+        return mFragment;
+    }
+
+    void setFragment (final SplitViewDetailFragment fragment) {
+        mFragment = fragment;
+    }
+
+    Fragment.SavedState getSavedState () {
+        return mSavedState;
+    }
+
+    void setSavedState (final Fragment.SavedState savedState) {
+        mSavedState = savedState;
+    }
+
+    void hibernate (final SplitViewDetailDescriptor descriptor,
+                    final Fragment.SavedState savedState) {
+        mDescriptor = descriptor;
+        mSavedState = savedState;
+        mFragment = null;
+    }
+
+    // Entries described by a descriptor are only instantiated once they are shown.
+    boolean isRealized () {
+        return mFragment != null;
+    }
+}
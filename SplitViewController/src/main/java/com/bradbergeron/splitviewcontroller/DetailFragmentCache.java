@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+final class DetailFragmentCache {
+    private final ArrayList<SplitViewDetailFragment> mEvictedFragments =
+            new ArrayList<SplitViewDetailFragment>();
+
+    private final LruCache<String, SplitViewDetailFragment> mCache;
+
+    private boolean mReplacing;
+
+
+    DetailFragmentCache (final int maxSize) {
+        mCache = new LruCache<String, SplitViewDetailFragment>(maxSize) {
+            @Override
+            protected void entryRemoved (final boolean evicted, final String key,
+                                         final SplitViewDetailFragment oldValue,
+                                         final SplitViewDetailFragment newValue) {
+                if (oldValue != newValue && (evicted || newValue != null) && !mReplacing) {
+                    mEvictedFragments.add(oldValue);
+                }
+            }
+        };
+    }
+
+
+    // ================================================================================
+    // Cache
+    // ================================================================================
+
+    static String getCacheKey (final Class<?> fragmentClass, final String argumentKey) {
+        return getCacheKey(fragmentClass.getName(), argumentKey);
+    }
+
+    // Fragments without an argument key cannot be told apart, so they are never cached.
+    static String getCacheKey (final String fragmentClassName, final String argumentKey) {
+        return (argumentKey != null) ? fragmentClassName + ':' + argumentKey : null;
+    }
+
+    void put (final SplitViewDetailFragment detailFragment) {
+        mCache.put(detailFragment.getCacheKey(), detailFragment);
+    }
+
+    // Swaps in the instance the FragmentManager recreated, without evicting the stale one.
+    void replace (final SplitViewDetailFragment detailFragment) {
+        mReplacing = true;
+        mCache.put(detailFragment.getCacheKey(), detailFragment);
+        mReplacing = false;
+    }
+
+    Collection<SplitViewDetailFragment> fragments () {
+        return mCache.snapshot().values();
+    }
+
+    SplitViewDetailFragment remove (final String cacheKey) {
+        return mCache.remove(cacheKey);
+    }
+
+    int maxSize () {
+        return mCache.maxSize();
+    }
+
+    void trimToSize (final int maxSize) {
+        mCache.trimToSize(maxSize);
+    }
+
+    void evictAll () {
+        mCache.evictAll();
+    }
+
+    boolean hasEvictedFragments () {
+        return !mEvictedFragments.isEmpty();
+    }
+
+    ArrayList<SplitViewDetailFragment> getEvictedFragments () {
+        return mEvictedFragments;
+    }
+}
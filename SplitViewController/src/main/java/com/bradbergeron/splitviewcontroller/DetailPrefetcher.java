@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+final class DetailPrefetcher {
+    private String mCacheKey;
+    private SplitViewDetailFragment mDetailFragment;
+
+    private int mHitCount;
+    private int mMissCount;
+
+
+    // ================================================================================
+    // Prefetching
+    // ================================================================================
+
+    boolean isPrefetching (final String cacheKey) {
+        return mDetailFragment != null && cacheKey != null && cacheKey.equals(mCacheKey);
+    }
+
+    void start (final String cacheKey, final SplitViewDetailFragment detailFragment) {
+        mCacheKey = cacheKey;
+        mDetailFragment = detailFragment;
+    }
+
+    SplitViewDetailFragment take (final String cacheKey) {
+        if (!isPrefetching(cacheKey)) {
+            return null;
+        }
+
+        final SplitViewDetailFragment detailFragment = mDetailFragment;
+
+        mCacheKey = null;
+        mDetailFragment = null;
+        mHitCount++;
+
+        return detailFragment;
+    }
+
+    SplitViewDetailFragment discard () {
+        final SplitViewDetailFragment detailFragment = mDetailFragment;
+
+        if (detailFragment != null) {
+            mCacheKey = null;
+            mDetailFragment = null;
+            mMissCount++;
+        }
+
+        return detailFragment;
+    }
+
+
+    // ================================================================================
+    // Statistics
+    // ================================================================================
+
+    int getHitCount () {
+        return mHitCount;
+    }
+
+    int getMissCount () {
+        return mMissCount;
+    }
+
+    void resetStatistics () {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+final class DetailViewChangedDispatcher {
+    private static final SplitViewController.OnDetailViewChangedListener[] NO_LISTENERS =
+            new SplitViewController.OnDetailViewChangedListener[0];
+
+    private final HashSet<SplitViewController.OnDetailViewChangedListener> mListenerSet =
+            new HashSet<SplitViewController.OnDetailViewChangedListener>();
+
+    // Replaced, never mutated, so a dispatch in progress keeps iterating its own copy.
+    private SplitViewController.OnDetailViewChangedListener[] mListeners = NO_LISTENERS;
+
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(new Runnable() {
+        @Override
+        public void run () {
+            dispatchPending();
+        }
+    });
+
+    private Executor mExecutor;
+
+    private SplitViewDetailFragment mPendingFragment;
+    private SplitViewDetailFragment mNotifiedFragment;
+    private boolean mNotified;
+
+
+    // ================================================================================
+    // Listeners
+    // ================================================================================
+
+    void addListener (final SplitViewController.OnDetailViewChangedListener listener) {
+        if (listener == null || !mListenerSet.add(listener)) {
+            return;
+        }
+
+        final int count = mListeners.length;
+        final SplitViewController.OnDetailViewChangedListener[] listeners =
+                new SplitViewController.OnDetailViewChangedListener[count + 1];
+        System.arraycopy(mListeners, 0, listeners, 0, count);
+        listeners[count] = listener;
+
+        mListeners = listeners;
+    }
+
+    void removeListener (final SplitViewController.OnDetailViewChangedListener listener) {
+        if (!mListenerSet.remove(listener)) {
+            return;
+        }
+
+        final int count = mListeners.length;
+
+        if (count == 1) {
+            mListeners = NO_LISTENERS;
+
+            return;
+        }
+
+        final SplitViewController.OnDetailViewChangedListener[] listeners =
+                new SplitViewController.OnDetailViewChangedListener[count - 1];
+
+        int index = 0;
+
+        for (final SplitViewController.OnDetailViewChangedListener existing : mListeners) {
+            if (existing != listener) {
+                listeners[index++] = existing;
+            }
+        }
+
+        mListeners = listeners;
+    }
+
+    void setExecutor (final Executor executor) {
+        mExecutor = executor;
+    }
+
+
+    // ================================================================================
+    // Dispatch
+    // ================================================================================
+
+    void dispatch (final SplitViewDetailFragment detailFragment) {
+        mPendingFragment = detailFragment;
+
+        if (mNotified && detailFragment == mNotifiedFragment) {
+            // Changed and changed back within the same frame.
+            mFrameScheduler.cancel();
+
+            return;
+        }
+
+        mFrameScheduler.schedule();
+    }
+
+    void cancel () {
+        mFrameScheduler.cancel();
+        mPendingFragment = mNotifiedFragment;
+    }
+
+    private void dispatchPending () {
+        final SplitViewDetailFragment detailFragment = mPendingFragment;
+
+        if (mNotified && detailFragment == mNotifiedFragment) {
+            return;
+        }
+
+        mNotifiedFragment = detailFragment;
+        mNotified = true;
+
+        final SplitViewController.OnDetailViewChangedListener[] listeners = mListeners;
+
+        if (listeners.length == 0) {
+            return;
+        }
+
+        if (mExecutor == null) {
+            notifyListeners(listeners, detailFragment);
+        } else {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run () {
+                    notifyListeners(listeners, detailFragment);
+                }
+            });
+        }
+    }
+
+    private static void notifyListeners (
+            final SplitViewController.OnDetailViewChangedListener[] listeners,
+            final SplitViewDetailFragment detailFragment) {
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onDetailViewChanged(detailFragment);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+final class DetailViewPool {
+    private final HashMap<Class<?>, ArrayList<View>> mPool =
+            new HashMap<Class<?>, ArrayList<View>>();
+
+    private int mMaxSizePerClass;
+
+
+    DetailViewPool (final int maxSizePerClass) {
+        mMaxSizePerClass = maxSizePerClass;
+    }
+
+
+    // ================================================================================
+    // Pool
+    // ================================================================================
+
+    View acquire (final Class<?> fragmentClass) {
+        final ArrayList<View> views = mPool.get(fragmentClass);
+
+        if (views == null) {
+            return null;
+        }
+
+        for (int i = views.size() - 1; i >= 0; i--) {
+            final View view = views.get(i);
+
+            // A view that is still animating out of its container can not be reused yet.
+            if (view.getParent() == null) {
+                views.remove(i);
+
+                return view;
+            }
+        }
+
+        return null;
+    }
+
+    void release (final Class<?> fragmentClass, final View view) {
+        if (mMaxSizePerClass <= 0) {
+            return;
+        }
+
+        ArrayList<View> views = mPool.get(fragmentClass);
+
+        if (views == null) {
+            views = new ArrayList<View>(mMaxSizePerClass);
+            mPool.put(fragmentClass, views);
+        }
+
+        if (views.size() < mMaxSizePerClass && !views.contains(view)) {
+            views.add(view);
+        }
+    }
+
+    void setMaxSizePerClass (final int maxSizePerClass) {
+        mMaxSizePerClass = maxSizePerClass;
+
+        for (final ArrayList<View> views : mPool.values()) {
+            while (views.size() > Math.max(0, maxSizePerClass)) {
+                views.remove(views.size() - 1);
+            }
+        }
+    }
+
+    int getMaxSizePerClass () {
+        return mMaxSizePerClass;
+    }
+
+    void clear () {
+        mPool.clear();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+final class FrameScheduler {
+    private final Runnable mTask;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mHandlerCallback = new Runnable() {
+        @Override
+        public void run () {
+            dispatch();
+        }
+    };
+
+    private final FrameCallbackCompat mFrameCallback;
+
+    private boolean mScheduled;
+
+
+    FrameScheduler (final Runnable task) {
+        mTask = task;
+        mFrameCallback = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+                ? new FrameCallbackCompat(this) : null;
+    }
+
+
+    // ================================================================================
+    // Scheduling
+    // ================================================================================
+
+    void schedule () {
+        if (mScheduled) {
+            return;
+        }
+
+        mScheduled = true;
+
+        if (mFrameCallback != null) {
+            mFrameCallback.post();
+        } else {
+            mHandler.post(mHandlerCallback);
+        }
+    }
+
+    void cancel () {
+        if (!mScheduled) {
+            return;
+        }
+
+        mScheduled = false;
+
+        if (mFrameCallback != null) {
+            mFrameCallback.remove();
+        } else {
+            mHandler.removeCallbacks(mHandlerCallback);
+        }
+    }
+
+    boolean isScheduled () {
+        return mScheduled;
+    }
+
+    private void dispatch () {
+        if (mScheduled) {
+            mScheduled = false;
+            mTask.run();
+        }
+    }
+
+
+    // ================================================================================
+    // Choreographer
+    // ================================================================================
+
+    @TargetApi (Build.VERSION_CODES.JELLY_BEAN)
+    private static final class FrameCallbackCompat implements Choreographer.FrameCallback {
+        private final FrameScheduler mScheduler;
+
+        FrameCallbackCompat (final FrameScheduler scheduler) {
+            mScheduler = scheduler;
+        }
+
+        void post () {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove () {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame (final long frameTimeNanos) {
+            mScheduler.dispatch();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.ViewTreeObserver;
+
+final class NavigationMetricsRecorder implements ViewTreeObserver.OnPreDrawListener {
+    private final SplitViewNavigationMetrics mMetrics = new SplitViewNavigationMetrics();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mExecutedRunnable = new Runnable() {
+        @Override
+        public void run () {
+            markExecuted();
+        }
+    };
+
+    private SplitViewController.NavigationMetricsListener mListener;
+
+    private boolean mRecording;
+    private boolean mCommitted;
+    private boolean mViewCreated;
+
+    private SplitViewDetailFragment mTargetFragment;
+
+    private long mPendingCreateNanos;
+    private long mStartTime;
+    private long mEnqueueTime;
+    private long mViewStartTime;
+
+
+    // ================================================================================
+    // Recording
+    // ================================================================================
+
+    void setListener (final SplitViewController.NavigationMetricsListener listener) {
+        mListener = listener;
+
+        if (listener == null) {
+            cancel();
+        }
+    }
+
+    boolean isEnabled () {
+        return mListener != null;
+    }
+
+    boolean isRecording () {
+        return mRecording;
+    }
+
+    void recordCreate (final long createNanos) {
+        if (mListener != null) {
+            mPendingCreateNanos += createNanos;
+        }
+    }
+
+    void begin (final int kind) {
+        if (mListener == null) {
+            return;
+        }
+
+        mMetrics.reset(kind);
+        mMetrics.mCreateNanos = mPendingCreateNanos;
+
+        mPendingCreateNanos = 0;
+        mStartTime = System.nanoTime();
+        mEnqueueTime = 0;
+        mViewStartTime = 0;
+        mCommitted = false;
+        mViewCreated = false;
+        mTargetFragment = null;
+        mRecording = true;
+
+        mHandler.removeCallbacks(mExecutedRunnable);
+    }
+
+    // commit() only enqueues the transaction. The FragmentManager has already posted its
+    // execution to the main thread, so the commit time is taken by a message queued behind it.
+    void markCommitted (final SplitViewDetailFragment targetFragment) {
+        if (!mRecording || mCommitted) {
+            return;
+        }
+
+        mCommitted = true;
+        mEnqueueTime = System.nanoTime();
+
+        mTargetFragment = targetFragment;
+        // Without a new detail view there is nothing to wait for but the next frame.
+        mViewCreated = (targetFragment == null);
+
+        mHandler.post(mExecutedRunnable);
+    }
+
+    private void markExecuted () {
+        if (mRecording && mCommitted && mMetrics.mCommitNanos == 0) {
+            mMetrics.mCommitNanos = System.nanoTime() - mStartTime;
+        }
+    }
+
+    void markViewStarted (final SplitViewDetailFragment detailFragment) {
+        if (mRecording && detailFragment == mTargetFragment && mCommitted) {
+            mViewStartTime = System.nanoTime();
+        }
+    }
+
+    void markViewCreated (final SplitViewDetailFragment detailFragment) {
+        if (!mRecording || detailFragment != mTargetFragment || !mCommitted) {
+            return;
+        }
+
+        final long viewStartTime = (mViewStartTime != 0) ? mViewStartTime : mEnqueueTime;
+
+        mMetrics.mInflateNanos = System.nanoTime() - viewStartTime;
+        mViewCreated = true;
+    }
+
+    void cancel () {
+        mRecording = false;
+        mTargetFragment = null;
+
+        mHandler.removeCallbacks(mExecutedRunnable);
+    }
+
+    @Override
+    public boolean onPreDraw () {
+        if (mRecording && mViewCreated) {
+            // A frame can be drawn before the queued message runs. The transaction has been
+            // executed by then all the same.
+            markExecuted();
+            mHandler.removeCallbacks(mExecutedRunnable);
+
+            mMetrics.mFirstDrawNanos = System.nanoTime() - mStartTime;
+
+            mRecording = false;
+            mTargetFragment = null;
+
+            if (mListener != null) {
+                mListener.onNavigationMetrics(mMetrics);
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.app.Fragment;
+import android.app.FragmentManager;
+import android.app.FragmentTransaction;
+
+final class PaneReconciler {
+    static final int PANE_ATTACHED = 0;
+    static final int PANE_DETACHED = 1;
+    static final int PANE_HIDDEN = 2;
+
+    private FragmentManager mFragmentManager;
+    private FragmentTransaction mTransaction;
+
+    private boolean mKeepMasterAlive;
+
+
+    // ================================================================================
+    // Reconciliation
+    // ================================================================================
+
+    FragmentTransaction reconcile (final FragmentManager fragmentManager,
+                                   final FragmentTransaction transaction,
+                                   final SplitViewMasterFragment masterFragment,
+                                   final SplitViewDetailFragment detailFragment,
+                                   final boolean splitViewLayout) {
+        mFragmentManager = fragmentManager;
+        mTransaction = transaction;
+
+        try {
+            applyPaneState(masterFragment,
+                           getMasterPaneState(splitViewLayout, detailFragment != null));
+
+            if (detailFragment != null) {
+                applyPaneState(detailFragment, PANE_ATTACHED);
+            }
+
+            return mTransaction;
+        } finally {
+            mFragmentManager = null;
+            mTransaction = null;
+        }
+    }
+
+    int getMasterPaneState (final boolean splitViewLayout, final boolean hasDetailFragment) {
+        if (splitViewLayout || !hasDetailFragment) {
+            return PANE_ATTACHED;
+        }
+
+        return mKeepMasterAlive ? PANE_HIDDEN : PANE_DETACHED;
+    }
+
+    private void applyPaneState (final Fragment fragment, final int state) {
+        final boolean detached = fragment.isDetached();
+        final boolean hidden = fragment.isHidden();
+
+        switch (state) {
+            case PANE_ATTACHED: {
+                if (detached) {
+                    getTransaction().attach(fragment);
+                }
+
+                if (hidden) {
+                    getTransaction().show(fragment);
+                }
+
+                break;
+            }
+            case PANE_HIDDEN: {
+                // A detached pane is not brought back just to be hidden.
+                if (!detached && !hidden) {
+                    getTransaction().hide(fragment);
+                }
+
+                break;
+            }
+            case PANE_DETACHED: {
+                if (!detached) {
+                    getTransaction().detach(fragment);
+                }
+
+                break;
+            }
+        }
+    }
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    void setKeepMasterAlive (final boolean keepMasterAlive) {
+        mKeepMasterAlive = keepMasterAlive;
+    }
+
+    private FragmentTransaction getTransaction () {
+        if (mTransaction == null) {
+            mTransaction = mFragmentManager.beginTransaction();
+        }
+
+        return mTransaction;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
+import android.app.FragmentTransaction;
+import android.view.View;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+
+final class PaneTransitionAnimator {
+    private static final float SLIDE_DISTANCE_DP = 48f;
+    private static final float PARALLAX_DISTANCE_DP = 24f;
+
+
+    private PaneTransitionAnimator () { }
+
+
+    // ================================================================================
+    // Animators
+    // ================================================================================
+
+    // Only translation and alpha are animated, so no frame of the transition needs a layout.
+    static Animator create (final View view, final int transit, final boolean enter) {
+        if (view == null) {
+            return null;
+        }
+
+        final float density = view.getResources().getDisplayMetrics().density;
+        final float slide = SLIDE_DISTANCE_DP * density;
+        final float parallax = PARALLAX_DISTANCE_DP * density;
+
+        final ObjectAnimator animator;
+
+        switch (transit) {
+            case FragmentTransaction.TRANSIT_FRAGMENT_OPEN: {
+                animator = enter ? animate(view, slide, 0f, 0f, 1f)
+                                 : animate(view, 0f, -parallax, 1f, 0f);
+
+                break;
+            }
+            case FragmentTransaction.TRANSIT_FRAGMENT_CLOSE: {
+                animator = enter ? animate(view, -parallax, 0f, 0f, 1f)
+                                 : animate(view, 0f, slide, 1f, 0f);
+
+                break;
+            }
+            case FragmentTransaction.TRANSIT_FRAGMENT_FADE: {
+                animator = enter ? animate(view, 0f, 0f, 0f, 1f) : animate(view, 0f, 0f, 1f, 0f);
+
+                break;
+            }
+            default: {
+                return null;
+            }
+        }
+
+        return prepare(view, animator, enter);
+    }
+
+    // Slides a whole pane container over or off the other one in single pane mode.
+    static Animator createPaneSwitch (final View pane, final boolean enter) {
+        final int width = ((View) pane.getParent()).getWidth();
+
+        if (width == 0) {
+            return null;
+        }
+
+        return prepare(pane, enter ? animate(pane, width, 0f, 1f, 1f)
+                                   : animate(pane, 0f, width, 1f, 1f), enter);
+    }
+
+    // Keeps a view in place for the length of a transition, so its container can be animated
+    // while the FragmentManager holds on to the view.
+    static Animator hold (final View view) {
+        if (view == null) {
+            return null;
+        }
+
+        final ObjectAnimator animator = ObjectAnimator.ofFloat(view, View.ALPHA, 1f, 1f);
+        animator.setDuration(getDuration(view));
+
+        return animator;
+    }
+
+    private static Animator prepare (final View view, final ObjectAnimator animator,
+                                     final boolean enter) {
+        animator.setDuration(getDuration(view));
+        animator.setInterpolator(enter ? new DecelerateInterpolator()
+                                       : new AccelerateInterpolator());
+        animator.addListener(new HardwareLayerListener(view));
+
+        return animator;
+    }
+
+    private static long getDuration (final View view) {
+        return view.getResources().getInteger(android.R.integer.config_shortAnimTime);
+    }
+
+    private static ObjectAnimator animate (final View view, final float fromTranslationX,
+                                           final float toTranslationX, final float fromAlpha,
+                                           final float toAlpha) {
+        return ObjectAnimator.ofPropertyValuesHolder(
+                view,
+                PropertyValuesHolder.ofFloat(View.TRANSLATION_X, fromTranslationX,
+                                             toTranslationX),
+                PropertyValuesHolder.ofFloat(View.ALPHA, fromAlpha, toAlpha));
+    }
+
+
+    // ================================================================================
+    // Hardware Layers
+    // ================================================================================
+
+    // Keeps the pane on a hardware layer for the whole transition, so each frame only
+    // composites the layer instead of redrawing the pane's view tree.
+    private static final class HardwareLayerListener extends AnimatorListenerAdapter {
+        private final View mView;
+
+        private int mLayerType = View.LAYER_TYPE_NONE;
+
+        HardwareLayerListener (final View view) {
+            mView = view;
+        }
+
+        @Override
+        public void onAnimationStart (final Animator animation) {
+            mLayerType = mView.getLayerType();
+
+            if (mLayerType != View.LAYER_TYPE_HARDWARE) {
+                mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+
+                if (mView.getWindowToken() != null) {
+                    mView.buildLayer();
+                }
+            }
+        }
+
+        @Override
+        public void onAnimationEnd (final Animator animation) {
+            if (mLayerType != View.LAYER_TYPE_HARDWARE) {
+                mView.setLayerType(mLayerType, null);
+            }
+
+            // Exiting views may be recycled, so they must not keep the transition's end state.
+            mView.setTranslationX(0f);
+            mView.setAlpha(1f);
+        }
+    }
+}
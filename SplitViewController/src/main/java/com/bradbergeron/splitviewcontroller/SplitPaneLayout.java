@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+// Lays out a master pane, an optional divider, a detail pane and an optional sub-detail pane, in
+// that child order. The sub-detail pane needs the divider before it. Every child is measured
+// exactly once per pass. Any further child is rejected when it is added.
+public class SplitPaneLayout extends ViewGroup {
+    private static final int MAX_CHILD_COUNT = 4;
+    private static final float DEFAULT_MASTER_PANE_RATIO = 0.4f;
+    private static final float MIN_PANE_RATIO = 0.2f;
+    private static final float DEFAULT_DIVIDER_TOUCH_WIDTH_DP = 24f;
+    private static final long DRAG_RELAYOUT_INTERVAL = 100;
+
+    private final Runnable mDragRelayout = new Runnable() {
+        @Override
+        public void run () {
+            mDragRelayoutScheduled = false;
+            applyDragRatio();
+        }
+    };
+
+    private float mMasterPaneRatio = DEFAULT_MASTER_PANE_RATIO;
+    private int mMasterPaneWidth;
+
+    private boolean mSplitPaneEnabled = true;
+
+    private boolean mPaneResizable;
+    private int mDividerTouchWidth;
+    private OnPaneResizeListener mOnPaneResizeListener;
+
+    private boolean mDragging;
+    private boolean mDragRelayoutScheduled;
+    private float mDragStartX;
+    private int mDragStartMasterWidth;
+    private float mDragRatio;
+
+
+    public SplitPaneLayout (final Context context) {
+        this(context, null);
+    }
+
+    public SplitPaneLayout (final Context context, final AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SplitPaneLayout (final Context context, final AttributeSet attrs,
+                            final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        final TypedArray a =
+                context.obtainStyledAttributes(attrs, R.styleable.SplitPaneLayout, defStyleAttr, 0);
+
+        mMasterPaneRatio = a.getFloat(R.styleable.SplitPaneLayout_masterPaneRatio,
+                                      DEFAULT_MASTER_PANE_RATIO);
+        mMasterPaneWidth = a.getDimensionPixelSize(R.styleable.SplitPaneLayout_masterPaneWidth, 0);
+        mSplitPaneEnabled = a.getBoolean(R.styleable.SplitPaneLayout_splitPaneEnabled, true);
+        mPaneResizable = a.getBoolean(R.styleable.SplitPaneLayout_paneResizable, false);
+        mDividerTouchWidth = a.getDimensionPixelSize(
+                R.styleable.SplitPaneLayout_dividerTouchWidth,
+                Math.round(DEFAULT_DIVIDER_TOUCH_WIDTH_DP *
+                           getResources().getDisplayMetrics().density));
+
+        a.recycle();
+    }
+
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    public void setMasterPaneRatio (final float masterPaneRatio) {
+        if (masterPaneRatio < 0f || masterPaneRatio > 1f) {
+            throw new IllegalArgumentException("Master pane ratio must be between 0 and 1.");
+        }
+
+        if (mMasterPaneRatio != masterPaneRatio) {
+            mMasterPaneRatio = masterPaneRatio;
+            requestLayout();
+        }
+    }
+
+    public float getMasterPaneRatio () {
+        return mMasterPaneRatio;
+    }
+
+    // A fixed master pane width takes precedence over the ratio. Pass 0 to use the ratio again.
+    public void setMasterPaneWidth (final int masterPaneWidth) {
+        if (mMasterPaneWidth != masterPaneWidth) {
+            mMasterPaneWidth = masterPaneWidth;
+            requestLayout();
+        }
+    }
+
+    public int getMasterPaneWidth () {
+        return mMasterPaneWidth;
+    }
+
+    public void setSplitPaneEnabled (final boolean splitPaneEnabled) {
+        if (mSplitPaneEnabled != splitPaneEnabled) {
+            if (!splitPaneEnabled) {
+                cancelDrag();
+            }
+
+            mSplitPaneEnabled = splitPaneEnabled;
+            requestLayout();
+        }
+    }
+
+    public boolean isSplitPaneEnabled () {
+        return mSplitPaneEnabled;
+    }
+
+    public void setPaneResizable (final boolean paneResizable) {
+        if (!paneResizable) {
+            cancelDrag();
+        }
+
+        mPaneResizable = paneResizable;
+    }
+
+    public boolean isPaneResizable () {
+        return mPaneResizable;
+    }
+
+    public void setDividerTouchWidth (final int dividerTouchWidth) {
+        mDividerTouchWidth = dividerTouchWidth;
+    }
+
+    public int getDividerTouchWidth () {
+        return mDividerTouchWidth;
+    }
+
+    public void setOnPaneResizeListener (final OnPaneResizeListener listener) {
+        mOnPaneResizeListener = listener;
+    }
+
+    public OnPaneResizeListener getOnPaneResizeListener () {
+        return mOnPaneResizeListener;
+    }
+
+
+    // ================================================================================
+    // Measure & Layout
+    // ================================================================================
+
+    @Override
+    protected void onMeasure (final int widthMeasureSpec, final int heightMeasureSpec) {
+        final int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        final int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+
+        setMeasuredDimension(width, height);
+
+        final int contentWidth = Math.max(0, width - getPaddingLeft() - getPaddingRight());
+        final int contentHeight = Math.max(0, height - getPaddingTop() - getPaddingBottom());
+        final int childHeightSpec =
+                MeasureSpec.makeMeasureSpec(contentHeight, MeasureSpec.EXACTLY);
+
+        final View masterPane = getMasterPane();
+        final View dividerView = getDividerView();
+        final View detailPane = getDetailPane();
+        final View subDetailPane = getSubDetailPane();
+
+        if (!mSplitPaneEnabled) {
+            // Stacked panes share the whole content area. Gone panes are not measured at all.
+            final int childWidthSpec =
+                    MeasureSpec.makeMeasureSpec(contentWidth, MeasureSpec.EXACTLY);
+
+            measurePane(masterPane, childWidthSpec, childHeightSpec);
+            measurePane(detailPane, childWidthSpec, childHeightSpec);
+            measurePane(subDetailPane, childWidthSpec, childHeightSpec);
+
+            if (dividerView != null && dividerView.getVisibility() != GONE) {
+                final int emptySpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.EXACTLY);
+                dividerView.measure(emptySpec, emptySpec);
+            }
+
+            return;
+        }
+
+        int dividerWidth = 0;
+
+        if (isPaneShown(dividerView)) {
+            // The divider is measured like any other child, so wrap_content and match_parent
+            // are honoured. It never takes more than the content width.
+            final int dividerLayoutWidth = dividerView.getLayoutParams().width;
+            final int dividerWidthSpec = (dividerLayoutWidth >= 0)
+                    ? MeasureSpec.makeMeasureSpec(Math.min(dividerLayoutWidth, contentWidth),
+                                                  MeasureSpec.EXACTLY)
+                    : getChildMeasureSpec(MeasureSpec.makeMeasureSpec(contentWidth,
+                                                                      MeasureSpec.AT_MOST),
+                                          0, dividerLayoutWidth);
+
+            dividerView.measure(dividerWidthSpec, childHeightSpec);
+            dividerWidth = Math.min(dividerView.getMeasuredWidth(), contentWidth);
+        }
+
+        final int paneWidth = contentWidth - dividerWidth;
+        final int masterWidth = isPaneShown(masterPane) ? getMasterPaneWidth(paneWidth) : 0;
+
+        // The detail panes split what the master pane leaves evenly.
+        final int detailPanesWidth = paneWidth - masterWidth;
+        final int subDetailWidth = isPaneShown(subDetailPane) ? detailPanesWidth / 2 : 0;
+
+        measurePane(masterPane, MeasureSpec.makeMeasureSpec(masterWidth, MeasureSpec.EXACTLY),
+                    childHeightSpec);
+        measurePane(detailPane, MeasureSpec.makeMeasureSpec(detailPanesWidth - subDetailWidth,
+                                                            MeasureSpec.EXACTLY),
+                    childHeightSpec);
+        measurePane(subDetailPane,
+                    MeasureSpec.makeMeasureSpec(subDetailWidth, MeasureSpec.EXACTLY),
+                    childHeightSpec);
+    }
+
+    @Override
+    protected void onLayout (final boolean changed, final int l, final int t, final int r,
+                             final int b) {
+        final int left = getPaddingLeft();
+        final int top = getPaddingTop();
+
+        final View masterPane = getMasterPane();
+        final View dividerView = getDividerView();
+        final View detailPane = getDetailPane();
+        final View subDetailPane = getSubDetailPane();
+
+        if (!mSplitPaneEnabled) {
+            layoutPane(masterPane, left, top);
+            layoutPane(detailPane, left, top);
+            layoutPane(subDetailPane, left, top);
+
+            if (dividerView != null) {
+                dividerView.layout(left, top, left, top);
+            }
+
+            return;
+        }
+
+        int x = left;
+
+        x = layoutPane(masterPane, x, top);
+        x = layoutPane(dividerView, x, top);
+        x = layoutPane(detailPane, x, top);
+        layoutPane(subDetailPane, x, top);
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState () {
+        return false;
+    }
+
+    private int getPaneWidth () {
+        final View dividerView = getDividerView();
+        final int dividerWidth = isPaneShown(dividerView) ? dividerView.getMeasuredWidth() : 0;
+
+        return Math.max(0, getWidth() - getPaddingLeft() - getPaddingRight() - dividerWidth);
+    }
+
+    private int getMasterPaneWidth (final int paneWidth) {
+        final int masterWidth = (mMasterPaneWidth > 0) ? mMasterPaneWidth
+                                                       : Math.round(paneWidth * mMasterPaneRatio);
+
+        return Math.max(0, Math.min(masterWidth, paneWidth));
+    }
+
+    private void measurePane (final View pane, final int widthSpec, final int heightSpec) {
+        if (isPaneShown(pane)) {
+            pane.measure(widthSpec, heightSpec);
+        }
+    }
+
+    private int layoutPane (final View pane, final int x, final int y) {
+        if (!isPaneShown(pane)) {
+            return x;
+        }
+
+        final int width = pane.getMeasuredWidth();
+        pane.layout(x, y, x + width, y + pane.getMeasuredHeight());
+
+        return x + width;
+    }
+
+    private boolean isPaneShown (final View pane) {
+        // The divider only belongs to the split arrangement.
+        return pane != null && pane.getVisibility() != GONE &&
+               (mSplitPaneEnabled || pane != getDividerView());
+    }
+
+
+    // ================================================================================
+    // Divider Dragging
+    // ================================================================================
+
+    @Override
+    public boolean onInterceptTouchEvent (final MotionEvent ev) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_DOWN && startDrag(ev)) {
+            return true;
+        }
+
+        return mDragging;
+    }
+
+    @Override
+    public boolean onTouchEvent (final MotionEvent ev) {
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                return mDragging || startDrag(ev);
+            }
+            case MotionEvent.ACTION_MOVE: {
+                if (mDragging) {
+                    dragTo(ev.getX());
+                }
+
+                break;
+            }
+            case MotionEvent.ACTION_UP: {
+                if (mDragging) {
+                    dragTo(ev.getX());
+                    endDrag();
+                }
+
+                break;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                if (mDragging) {
+                    endDrag();
+                }
+
+                break;
+            }
+        }
+
+        return mDragging || super.onTouchEvent(ev);
+    }
+
+    private boolean startDrag (final MotionEvent ev) {
+        final View dividerView = getDividerView();
+
+        if (!mPaneResizable || !mSplitPaneEnabled || !isPaneShown(dividerView) ||
+            !isPaneShown(getMasterPane())) {
+            return false;
+        }
+
+        final float dividerCenter = (dividerView.getLeft() + dividerView.getRight()) / 2f;
+
+        if (Math.abs(ev.getX() - dividerCenter) > mDividerTouchWidth / 2f) {
+            return false;
+        }
+
+        mDragging = true;
+        mDragStartX = ev.getX();
+        mDragStartMasterWidth = getMasterPaneWidth(getPaneWidth());
+        mDragRatio = mMasterPaneRatio;
+
+        if (getParent() != null) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+
+        return true;
+    }
+
+    private void dragTo (final float x) {
+        final int paneWidth = getPaneWidth();
+
+        if (paneWidth == 0) {
+            return;
+        }
+
+        final int minWidth = Math.round(paneWidth * MIN_PANE_RATIO);
+        final int masterWidth = Math.max(minWidth, Math.min(paneWidth - minWidth,
+                Math.round(mDragStartMasterWidth + x - mDragStartX)));
+
+        mDragRatio = (float) masterWidth / paneWidth;
+
+        // The divider follows the finger and the panes are stretched to meet it, which needs no
+        // layout. The panes are only measured again at a throttled rate and when the drag ends.
+        setDragOffset(masterWidth - getMasterPaneWidth(paneWidth));
+
+        if (!mDragRelayoutScheduled) {
+            mDragRelayoutScheduled = true;
+            postDelayed(mDragRelayout, DRAG_RELAYOUT_INTERVAL);
+        }
+    }
+
+    private void endDrag () {
+        mDragging = false;
+
+        removeCallbacks(mDragRelayout);
+        mDragRelayoutScheduled = false;
+
+        applyDragRatio();
+
+        if (mOnPaneResizeListener != null) {
+            mOnPaneResizeListener.onPaneResized(this, mMasterPaneRatio);
+        }
+    }
+
+    private void cancelDrag () {
+        if (!mDragging) {
+            return;
+        }
+
+        mDragging = false;
+
+        removeCallbacks(mDragRelayout);
+        mDragRelayoutScheduled = false;
+
+        setDragOffset(0);
+    }
+
+    private void applyDragRatio () {
+        // The offset is dropped in the same traversal that lays the panes out at the new ratio.
+        setDragOffset(0);
+
+        mMasterPaneWidth = 0;
+
+        if (mMasterPaneRatio != mDragRatio) {
+            mMasterPaneRatio = mDragRatio;
+        }
+
+        requestLayout();
+    }
+
+    private void setDragOffset (final int offset) {
+        final View masterPane = getMasterPane();
+        final View dividerView = getDividerView();
+        final View detailPane = getDetailPane();
+
+        if (dividerView != null) {
+            dividerView.setTranslationX(offset);
+        }
+
+        // The master pane grows from its left edge and the detail pane from its right edge.
+        stretchPane(masterPane, offset, 0f);
+
+        if (detailPane != null) {
+            stretchPane(detailPane, -offset, detailPane.getWidth());
+        }
+    }
+
+    private static void stretchPane (final View pane, final int delta, final float pivotX) {
+        if (pane == null || pane.getWidth() == 0) {
+            return;
+        }
+
+        pane.setPivotX(pivotX);
+        pane.setScaleX((delta == 0) ? 1f : (float) (pane.getWidth() + delta) / pane.getWidth());
+    }
+
+    @Override
+    protected void onDetachedFromWindow () {
+        cancelDrag();
+
+        super.onDetachedFromWindow();
+    }
+
+
+    // ================================================================================
+    // Panes
+    // ================================================================================
+
+    @Override
+    public void addView (final View child, final int index, final LayoutParams params) {
+        if (getChildCount() >= MAX_CHILD_COUNT) {
+            throw new IllegalStateException(
+                    "SplitPaneLayout only hosts a master pane, a divider and two detail panes.");
+        }
+
+        super.addView(child, index, params);
+    }
+
+    public View getMasterPane () {
+        return (getChildCount() > 0) ? getChildAt(0) : null;
+    }
+
+    public View getDividerView () {
+        return (getChildCount() > 2) ? getChildAt(1) : null;
+    }
+
+    public View getDetailPane () {
+        return (getChildCount() > 1) ? getChildAt(Math.min(getChildCount() - 1, 2)) : null;
+    }
+
+    public View getSubDetailPane () {
+        return (getChildCount() > 3) ? getChildAt(3) : null;
+    }
+
+
+    // ================================================================================
+    // OnPaneResizeListener
+    // ================================================================================
+
+    public interface OnPaneResizeListener {
+        void onPaneResized (SplitPaneLayout splitPaneLayout, float masterPaneRatio);
+    }
+}
@@ -22,7 +22,9 @@
 
 package com.bradbergeron.splitviewcontroller;
 
+import android.animation.Animator;
 import android.app.Fragment;
+import android.os.Build;
 import android.os.Bundle;
 
 abstract class SplitViewAbsFragment extends Fragment {
@@ -37,7 +39,26 @@ abstract class SplitViewAbsFragment extends Fragment {
     public void onCreate (final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        setRetainInstance(true);
+        // Fragments nested in a controller's child fragment manager cannot be retained.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1 ||
+            getParentFragment() == null) {
+            setRetainInstance(true);
+        }
+    }
+
+    @Override
+    public Animator onCreateAnimator (final int transit, final boolean enter,
+                                      final int nextAnim) {
+        // Custom animations set on the transaction take precedence over the pane transitions.
+        if (nextAnim == 0 && transit != 0 && mController != null) {
+            final Animator animator = mController.onCreatePaneAnimator(this, transit, enter);
+
+            if (animator != null) {
+                return animator;
+            }
+        }
+
+        return super.onCreateAnimator(transit, enter, nextAnim);
     }
 
 
@@ -22,54 +22,390 @@
 
 package com.bradbergeron.splitviewcontroller;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
+import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+import android.os.AsyncTask;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class SplitViewController extends Fragment implements SplitViewNavigationListener {
+    public static final int RETAIN_ALL = 0;
+    public static final int RETAIN_VISIBLE = 1;
+    public static final int RETAIN_BUDGET = 2;
+
+    private static final String DETAIL_BACK_STACK_NAME = "SplitViewController:detail";
+    private static final String DETAIL_FRAGMENT_TAG = "SplitViewController:detail:";
+    private static final String CACHED_DETAIL_FRAGMENT_TAG = "SplitViewController:cached:";
+
+    private static final int DEFAULT_DETAIL_VIEW_POOL_SIZE = 2;
+    private static final long DEFAULT_DETAIL_REQUEST_SETTLE_DELAY = 100;
+
+    private static final String STATE_DETAIL_FRAGMENT_TAGS = "SplitViewController:detailTags";
+    private static final String STATE_DETAIL_DESCRIPTORS = "SplitViewController:detailDescriptors";
+    private static final String STATE_DETAIL_SAVED_STATES = "SplitViewController:detailStates";
+
+    private static final String PREFERENCES_NAME = "SplitViewController";
+    private static final String PREF_MASTER_PANE_RATIO = "masterPaneRatio:";
+
     private final FragmentManager.OnBackStackChangedListener mBackStackListener =
             new FragmentManager.OnBackStackChangedListener() {
                 @Override
                 public void onBackStackChanged () {
-                    configureChildFragments();
+                    // A detail stack built in one pass commits one marker per level. The stack
+                    // is only in sync once the last of them has been added.
+                    if (mPendingDetailMarkers > 0 && --mPendingDetailMarkers > 0) {
+                        return;
+                    }
+
+                    if (mCommittingPendingOperations || mUpdatingDetailStack) {
+                        return;
+                    }
+
+                    if (mTransactionBatchingEnabled) {
+                        mConfigurePending = true;
+                        mTransactionScheduler.schedule();
+                    } else {
+                        configureChildFragments();
+                    }
+                }
+            };
+
+    private final DetailViewChangedDispatcher mDetailViewChangedDispatcher =
+            new DetailViewChangedDispatcher();
+
+    private final PaneReconciler mPaneReconciler = new PaneReconciler();
+
+    private final SplitPaneLayout.OnPaneResizeListener mPaneResizeListener =
+            new SplitPaneLayout.OnPaneResizeListener() {
+                @Override
+                public void onPaneResized (final SplitPaneLayout splitPaneLayout,
+                                           final float masterPaneRatio) {
+                    saveMasterPaneRatio(masterPaneRatio);
                 }
             };
 
-    private final ArrayList<OnDetailViewChangedListener> mDetailViewChangedListeners =
-            new ArrayList<OnDetailViewChangedListener>();
+    private final FrameScheduler mTransactionScheduler = new FrameScheduler(new Runnable() {
+        @Override
+        public void run () {
+            commitPendingOperations();
+        }
+    });
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mDetailRequestRunnable = new Runnable() {
+        @Override
+        public void run () {
+            commitDetailRequest();
+        }
+    };
+
+    private Class<? extends SplitViewDetailFragment> mRequestedFragmentClass;
+    private String mRequestedArgumentKey;
+    private Bundle mRequestedArgs;
+
+    private long mDetailRequestSettleDelay = DEFAULT_DETAIL_REQUEST_SETTLE_DELAY;
+    private int mDroppedDetailRequestCount;
+
+    private final ConcurrentLinkedQueue<NavigationCommand> mNavigationCommands =
+            new ConcurrentLinkedQueue<NavigationCommand>();
+
+    private final AtomicBoolean mNavigationDrainScheduled = new AtomicBoolean();
+
+    private final Runnable mNavigationDrainRunnable = new Runnable() {
+        @Override
+        public void run () {
+            drainNavigationCommands();
+        }
+    };
+
+    private final ArrayList<PendingOperation> mPendingOperations =
+            new ArrayList<PendingOperation>();
+
+    private final ArrayList<DetailEntry> mDetailStack = new ArrayList<DetailEntry>();
+
+    private ArrayList<String> mRestoredDetailFragmentTags;
+    private ArrayList<SplitViewDetailDescriptor> mRestoredDetailDescriptors;
+    private ArrayList<Fragment.SavedState> mRestoredDetailSavedStates;
+
+    private boolean mLazyDetailRestorationEnabled;
+    private int mMaxLiveDetailDepth = Integer.MAX_VALUE;
+
+    private int mRetentionPolicy = RETAIN_ALL;
+    private int mRetentionBudget;
+    private boolean mRetentionTrimmed;
+    private boolean mResolveRecreatedFragments;
+    private boolean mStarted;
+
+    private SplitViewLayoutPolicy mLayoutPolicy;
+    private int mPendingDetailMarkers;
+
+    private DetailFragmentCache mDetailFragmentCache;
+
+    private final AsyncDetailInflater mAsyncDetailInflater = new AsyncDetailInflater();
+
+    private final DetailPrefetcher mDetailPrefetcher = new DetailPrefetcher();
+    private AsyncDetailInflater.Request mWarmInflationRequest;
+
+    private final NavigationMetricsRecorder mNavigationMetrics = new NavigationMetricsRecorder();
+
+    private final SplitViewOperationCounts mOperationCounts = new SplitViewOperationCounts();
+
+    private final DetailViewPool mDetailViewPool =
+            new DetailViewPool(DEFAULT_DETAIL_VIEW_POOL_SIZE);
 
     private SplitViewMasterFragment mMasterFragment;
     private SplitViewDetailFragment mDetailFragment;
 
     private boolean mNotifyDetailViewListeners = true;
 
+    private Boolean mLastSplitViewLayout;
+
+    private SplitPaneLayout mSplitPaneLayout;
+    private Map<String, Float> mMasterPaneRatios;
+
+    private boolean mKeepMasterPaneAlive;
+    private boolean mMasterKeepAliveSuspended;
+    private boolean mUpdatingDetailStack;
+
+    private boolean mChildFragmentManagerEnabled;
+
+    private boolean mPaneTransitionsEnabled;
+    private Animator mPaneSwitchAnimator;
+    private boolean mPaneSwitchShowsDetail;
+
+    private boolean mTransactionBatchingEnabled;
+    private boolean mConfigurePending;
+    private boolean mCommittingPendingOperations;
+    private int mCoalescedCommitCount;
+
 
     // ================================================================================
     // Fragment Lifecycle
     // ================================================================================
 
+    @Override
+    public void onAttach (final Activity activity) {
+        super.onAttach(activity);
+
+        // Fragments that were not retained have been recreated for the new Activity.
+        mResolveRecreatedFragments = true;
+
+        if (mLayoutPolicy != null) {
+            mLayoutPolicy.update(activity.getResources().getConfiguration());
+        }
+    }
+
     @Override
     public void onCreate (final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        setRetainInstance(true);
+        setRetainInstance(!mChildFragmentManagerEnabled);
+
+        if (savedInstanceState != null) {
+            mRestoredDetailFragmentTags =
+                    savedInstanceState.getStringArrayList(STATE_DETAIL_FRAGMENT_TAGS);
+            mRestoredDetailDescriptors =
+                    savedInstanceState.getParcelableArrayList(STATE_DETAIL_DESCRIPTORS);
+            mRestoredDetailSavedStates =
+                    savedInstanceState.getParcelableArrayList(STATE_DETAIL_SAVED_STATES);
+        }
+
+        if (mMasterPaneRatios == null) {
+            loadMasterPaneRatios();
+        }
+    }
+
+    @Override
+    public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                              final Bundle savedInstanceState) {
+        final int paneLayoutId = getPaneLayoutId();
+
+        if (paneLayoutId == 0) {
+            return super.onCreateView(inflater, container, savedInstanceState);
+        }
+
+        // The root stays in place across configuration changes; only the pane skeleton inside
+        // it is swapped.
+        final FrameLayout root = new FrameLayout(inflater.getContext());
+        inflater.inflate(paneLayoutId, root, true);
+
+        return root;
+    }
+
+    @Override
+    public void onConfigurationChanged (final Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        // Pooled views were inflated against the old configuration's resources.
+        mDetailViewPool.clear();
+
+        // With a layout policy, the panes are only rebuilt when the mode actually flips.
+        if ((mLayoutPolicy != null && !mLayoutPolicy.update(newConfig)) ||
+            mMasterFragment == null) {
+            return;
+        }
+
+        rebuildPaneLayout();
+
+        // A stopped controller has detached its panes; onStart() configures them again.
+        if (mStarted) {
+            configureChildFragments();
+        }
+    }
+
+    private void rebuildPaneLayout () {
+        final int paneLayoutId = getPaneLayoutId();
+        final View view = getView();
+
+        if (paneLayoutId == 0 || !(view instanceof ViewGroup)) {
+            return;
+        }
+
+        final ViewGroup root = (ViewGroup) view;
+        final View masterContainer = root.findViewById(getMasterFragmentContainerId());
+        final View detailContainer = root.findViewById(getDetailFragmentContainerId());
+
+        if (masterContainer == null || detailContainer == null) {
+            return;
+        }
+
+        final View skeleton = LayoutInflater.from(root.getContext())
+                                            .inflate(paneLayoutId, root, false);
+
+        transplantPaneContainer(skeleton, masterContainer);
+        transplantPaneContainer(skeleton, detailContainer);
+
+        // The sub-detail pane is optional, so a skeleton without one just drops it. Fragments
+        // left in it are created again in the detail pane.
+        final int subDetailContainerId = getSubDetailFragmentContainerId();
+        final View subDetailContainer =
+                (subDetailContainerId != 0) ? root.findViewById(subDetailContainerId) : null;
+
+        if (subDetailContainer != null && skeleton.findViewById(subDetailContainerId) != null) {
+            transplantPaneContainer(skeleton, subDetailContainer);
+        }
+
+        root.removeAllViews();
+        root.addView(skeleton);
+    }
+
+    private static void transplantPaneContainer (final View skeleton, final View container) {
+        final View placeholder = skeleton.findViewById(container.getId());
+
+        if (placeholder == null) {
+            throw new IllegalStateException(
+                    "Pane layout has no view with the id of an existing pane container.");
+        }
+
+        final ViewGroup placeholderParent = (ViewGroup) placeholder.getParent();
+        final int index = placeholderParent.indexOfChild(placeholder);
+
+        ((ViewGroup) container.getParent()).removeView(container);
+
+        placeholderParent.removeViewAt(index);
+        placeholderParent.addView(container, index, placeholder.getLayoutParams());
     }
 
     @Override
     public void onStart () {
         super.onStart();
 
+        mPendingDetailMarkers = 0;
+        mStarted = true;
+
         configureChildFragments();
 
-        getFragmentManager().addOnBackStackChangedListener(mBackStackListener);
+        getPaneFragmentManager().addOnBackStackChangedListener(mBackStackListener);
+
+        final View view = getView();
+
+        if (view != null) {
+            view.getViewTreeObserver().addOnPreDrawListener(mNavigationMetrics);
+        }
+    }
+
+    @Override
+    public void onResume () {
+        super.onResume();
+
+        // Commands posted while stopped are held until the FragmentManager accepts them again.
+        if (!mNavigationCommands.isEmpty()) {
+            scheduleNavigationDrain();
+        }
+
+        if (!mPendingOperations.isEmpty() || mConfigurePending) {
+            mTransactionScheduler.schedule();
+        }
+    }
+
+    @Override
+    public void onPause () {
+        // Batched operations are committed before the instance state is saved, which would
+        // make any later commit throw.
+        if (mTransactionScheduler.isScheduled()) {
+            mTransactionScheduler.cancel();
+            commitPendingOperations();
+        }
+
+        super.onPause();
+
+        // The instance state is saved after onPause(), so covered entries hibernated here are
+        // restored as descriptors. Until then pushes and pops keep them live.
+        if (mLazyDetailRestorationEnabled && !getActivity().isFinishing()) {
+            final FragmentTransaction transaction = getPaneFragmentManager().beginTransaction();
+
+            if (trimLiveDetailEntries(transaction, 0, 1)) {
+                transaction.commit();
+                mOperationCounts.mCommits++;
+            }
+        }
     }
 
     @Override
     public void onStop () {
-        final FragmentManager fragmentManager = getFragmentManager();
+        mStarted = false;
+
+        cancelDetailRequest();
+
+        if (mPaneSwitchAnimator != null) {
+            mPaneSwitchAnimator.end();
+        }
+
+        // Anything still batched was requested after onPause() and waits for onResume().
+        mTransactionScheduler.cancel();
+
+        final View view = getView();
+
+        if (view != null && view.getViewTreeObserver().isAlive()) {
+            view.getViewTreeObserver().removeOnPreDrawListener(mNavigationMetrics);
+        }
+
+        mNavigationMetrics.cancel();
+
+        final FragmentManager fragmentManager = getPaneFragmentManager();
         fragmentManager.removeOnBackStackChangedListener(mBackStackListener);
 
         if (mMasterFragment != null || mDetailFragment != null) {
@@ -79,150 +415,2076 @@ public abstract class SplitViewController extends Fragment implements SplitViewN
                 transaction.detach(mMasterFragment);
             }
 
-            if (mDetailFragment != null && !mDetailFragment.isDetached()) {
-                transaction.detach(mDetailFragment);
+            for (final DetailEntry entry : mDetailStack) {
+                final SplitViewDetailFragment detailFragment = entry.getFragment();
+
+                if (detailFragment != null && !detailFragment.isDetached()) {
+                    transaction.detach(detailFragment);
+                }
             }
 
             transaction.commitAllowingStateLoss();
+            mOperationCounts.mCommits++;
         }
 
         super.onStop();
     }
 
+    @Override
+    public void onDestroyView () {
+        // The controller outlives its views when it is retained.
+        mSplitPaneLayout = null;
+
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onDetach () {
+        // Pooled views hold on to the Activity they were inflated in.
+        mDetailViewPool.clear();
+
+        mDetailViewChangedDispatcher.cancel();
+
+        super.onDetach();
+    }
+
+    @Override
+    public void onSaveInstanceState (final Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        final ArrayList<String> detailFragmentTags = new ArrayList<String>(mDetailStack.size());
+        final ArrayList<SplitViewDetailDescriptor> detailDescriptors =
+                new ArrayList<SplitViewDetailDescriptor>(mDetailStack.size());
+        final ArrayList<Fragment.SavedState> detailSavedStates =
+                new ArrayList<Fragment.SavedState>(mDetailStack.size());
+
+        for (final DetailEntry entry : mDetailStack) {
+            detailFragmentTags.add(entry.isRealized() ? entry.getFragment().getTag() : null);
+            detailDescriptors.add(entry.getDescriptor());
+            detailSavedStates.add(entry.getSavedState());
+        }
+
+        outState.putStringArrayList(STATE_DETAIL_FRAGMENT_TAGS, detailFragmentTags);
+        outState.putParcelableArrayList(STATE_DETAIL_DESCRIPTORS, detailDescriptors);
+        outState.putParcelableArrayList(STATE_DETAIL_SAVED_STATES, detailSavedStates);
+
+        // The retain flags are only read when the Activity is torn down, which follows this.
+        applyRetentionPolicy();
+    }
+
+    @Override
+    public void onTrimMemory (final int level) {
+        super.onTrimMemory(level);
+
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mDetailViewPool.clear();
+            releaseHiddenMasterPane();
+            releaseCoveredDetailFragments();
+        }
+
+        if (mDetailFragmentCache == null) {
+            return;
+        }
+
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            mDetailFragmentCache.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mDetailFragmentCache.trimToSize(mDetailFragmentCache.maxSize() / 2);
+        }
+
+        removeEvictedDetailFragments(null);
+    }
+
+    @Override
+    public void onLowMemory () {
+        super.onLowMemory();
+
+        mDetailViewPool.clear();
+        releaseHiddenMasterPane();
+        releaseCoveredDetailFragments();
+
+        if (mDetailFragmentCache != null) {
+            mDetailFragmentCache.evictAll();
+            removeEvictedDetailFragments(null);
+        }
+    }
+
 
     // ================================================================================
     // Child Fragment Management
     // ================================================================================
 
-    private void configureChildFragments () {
+    private boolean configureChildFragments () {
+        final FragmentManager fragmentManager = getPaneFragmentManager();
+
         if (mMasterFragment == null) {
-            throw new IllegalStateException("Master view Fragment could not be found.");
+            // A controller that is not retained finds its restored master in the pane manager.
+            final Fragment masterFragment =
+                    fragmentManager.findFragmentById(getMasterFragmentContainerId());
+
+            if (!(masterFragment instanceof SplitViewMasterFragment)) {
+                throw new IllegalStateException("Master view Fragment could not be found.");
+            }
+
+            mMasterFragment = (SplitViewMasterFragment) masterFragment;
+        }
+
+        if (mResolveRecreatedFragments) {
+            mResolveRecreatedFragments = false;
+            resolveRecreatedFragments(fragmentManager);
         }
 
         mMasterFragment.setController(this);
 
-        final FragmentManager fragmentManager = getFragmentManager();
+        final int previousDepth = mDetailStack.size();
+
+        final boolean splitViewLayout = isSplitViewLayout();
 
-        final SplitViewDetailFragment detailFragment = (SplitViewDetailFragment) fragmentManager
-                .findFragmentById(getDetailFragmentContainerId());
+        FragmentTransaction transaction = syncDetailStack(fragmentManager);
+        transaction = placeDetailEntries(fragmentManager, transaction,
+                                         isThreePaneLayout(splitViewLayout));
 
-        mDetailFragment =
-                (detailFragment != null && detailFragment.isRemoving()) ? null : detailFragment;
+        mDetailFragment = getTopDetailFragment();
 
-        if (mDetailFragment != null) {
-            mDetailFragment.setController(this);
+        if (mNavigationMetrics.isEnabled() && !mNavigationMetrics.isRecording()) {
+            if (mDetailStack.size() < previousDepth) {
+                mNavigationMetrics.begin(SplitViewNavigationMetrics.KIND_POP);
+            } else if (mLastSplitViewLayout != null && mLastSplitViewLayout != splitViewLayout) {
+                mNavigationMetrics.begin(SplitViewNavigationMetrics.KIND_MODE_CHANGE);
+            }
         }
 
-        final FragmentTransaction transaction = fragmentManager.beginTransaction();
+        mLastSplitViewLayout = splitViewLayout;
+
+        if (mMasterKeepAliveSuspended && (splitViewLayout || mDetailFragment == null)) {
+            // The master is visible again, so it can be kept alive the next time it is hidden.
+            mMasterKeepAliveSuspended = false;
+            mPaneReconciler.setKeepMasterAlive(mKeepMasterPaneAlive);
+        }
 
-        if (isSplitViewLayout()) {
-            transaction.attach(mMasterFragment);
+        transaction = mPaneReconciler.reconcile(fragmentManager, transaction, mMasterFragment,
+                                                mDetailFragment, splitViewLayout);
 
-            if (mDetailFragment != null) {
-                transaction.attach(mDetailFragment);
+        if (transaction != null) {
+            if (mDetailStack.size() < previousDepth) {
+                applyPaneTransition(transaction, FragmentTransaction.TRANSIT_FRAGMENT_CLOSE);
             }
-        } else if (mDetailFragment != null) {
-            transaction.attach(mDetailFragment);
-        } else {
-            transaction.attach(mMasterFragment);
+
+            transaction.commit();
+            mOperationCounts.mCommits++;
         }
 
-        transaction.commit();
+        mNavigationMetrics.markCommitted(mDetailFragment);
+
+        updatePaneContainers(splitViewLayout);
 
         notifyDetailViewChangedListeners();
+
+        return transaction != null;
     }
 
+    private void resolveRecreatedFragments (final FragmentManager fragmentManager) {
+        final Fragment masterFragment = fragmentManager
+                .findFragmentByTag(mMasterFragment.getClass().getSimpleName());
 
-    // ================================================================================
-    // Master Fragment
-    // ================================================================================
+        if (masterFragment instanceof SplitViewMasterFragment) {
+            mMasterFragment = (SplitViewMasterFragment) masterFragment;
+        }
 
-    public abstract int getMasterFragmentContainerId ();
+        for (int i = 0; i < mDetailStack.size(); i++) {
+            final DetailEntry entry = mDetailStack.get(i);
+            final SplitViewDetailFragment detailFragment = entry.getFragment();
 
-    public void setMasterFragment (final SplitViewMasterFragment masterFragment) {
-        masterFragment.setController(this);
+            if (detailFragment != null) {
+                entry.setFragment(resolveRecreatedFragment(
+                        fragmentManager, detailFragment, getDetailFragmentTag(detailFragment, i)));
+            }
+        }
 
-        final FragmentTransaction transaction = getFragmentManager().beginTransaction();
-        transaction.replace(getMasterFragmentContainerId(), masterFragment,
-                            masterFragment.getClass().getSimpleName());
-        transaction.commit();
+        if (mDetailFragmentCache == null) {
+            return;
+        }
 
-        mMasterFragment = masterFragment;
+        for (final SplitViewDetailFragment detailFragment : mDetailFragmentCache.fragments()) {
+            final SplitViewDetailFragment recreatedFragment = resolveRecreatedFragment(
+                    fragmentManager, detailFragment, getDetailFragmentTag(detailFragment, 0));
+
+            if (recreatedFragment != detailFragment) {
+                mDetailFragmentCache.replace(recreatedFragment);
+            }
+        }
     }
 
+    private SplitViewDetailFragment resolveRecreatedFragment (
+            final FragmentManager fragmentManager, final SplitViewDetailFragment detailFragment,
+            final String tag) {
+        final Fragment fragment = fragmentManager.findFragmentByTag(tag);
 
-    // ================================================================================
-    // Detail Fragment
-    // ================================================================================
+        if (!(fragment instanceof SplitViewDetailFragment) || fragment == detailFragment) {
+            return detailFragment;
+        }
 
-    public abstract int getDetailFragmentContainerId ();
+        final SplitViewDetailFragment recreatedFragment = (SplitViewDetailFragment) fragment;
+        recreatedFragment.setController(this);
+        recreatedFragment.setCacheKey(detailFragment.getCacheKey());
 
-    public void setDetailFragment (final SplitViewDetailFragment detailFragment) {
-        setDetailFragment(detailFragment, getFragmentManager().beginTransaction());
+        return recreatedFragment;
     }
 
-    public void setDetailFragment (final SplitViewDetailFragment detailFragment,
-                                   final FragmentTransaction transaction) {
-        final FragmentManager fragmentManager = getFragmentManager();
+    private FragmentTransaction syncDetailStack (final FragmentManager fragmentManager) {
+        final int depth = getDetailBackStackDepth(fragmentManager);
 
-        if (detailFragment == null) {
-            fragmentManager.popBackStackImmediate(null, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+        FragmentTransaction transaction = null;
 
-            return;
-        }
+        // Entries above the back stack depth have been popped.
+        while (mDetailStack.size() > depth) {
+            final DetailEntry entry = mDetailStack.remove(mDetailStack.size() - 1);
 
-        detailFragment.setController(this);
+            if (!entry.isRealized()) {
+                continue;
+            }
 
-        if (fragmentManager.getBackStackEntryCount() > 0) {
-            mNotifyDetailViewListeners = false;
-            fragmentManager.popBackStackImmediate(null, FragmentManager.POP_BACK_STACK_INCLUSIVE);
-            mNotifyDetailViewListeners = true;
+            if (transaction == null) {
+                transaction = fragmentManager.beginTransaction();
+            }
+
+            transaction.remove(entry.getFragment());
         }
 
-        transaction.replace(getDetailFragmentContainerId(), detailFragment);
-        transaction.addToBackStack(null);
+        // Entries below the back stack depth were restored by the FragmentManager after the
+        // process was recreated.
+        if (mRestoredDetailFragmentTags != null) {
+            for (int i = mDetailStack.size(); i < depth && i < mRestoredDetailFragmentTags.size();
+                 i++) {
+                final String tag = mRestoredDetailFragmentTags.get(i);
+                final Fragment fragment = (tag != null) ? fragmentManager.findFragmentByTag(tag)
+                                                        : null;
+                final SplitViewDetailDescriptor descriptor =
+                        (mRestoredDetailDescriptors != null &&
+                         i < mRestoredDetailDescriptors.size())
+                        ? mRestoredDetailDescriptors.get(i) : null;
+
+                if (!(fragment instanceof SplitViewDetailFragment)) {
+                    if (descriptor == null) {
+                        break;
+                    }
+
+                    final DetailEntry entry = new DetailEntry(descriptor, null);
+
+                    if (mRestoredDetailSavedStates != null &&
+                        i < mRestoredDetailSavedStates.size()) {
+                        entry.setSavedState(mRestoredDetailSavedStates.get(i));
+                    }
+
+                    mDetailStack.add(entry);
 
-        if (!isSplitViewLayout() && !mMasterFragment.isDetached()) {
-            transaction.detach(mMasterFragment);
+                    continue;
+                }
+
+                final SplitViewDetailFragment detailFragment = (SplitViewDetailFragment) fragment;
+                detailFragment.setController(this);
+
+                if (tag.startsWith(CACHED_DETAIL_FRAGMENT_TAG)) {
+                    detailFragment.setCacheKey(
+                            tag.substring(CACHED_DETAIL_FRAGMENT_TAG.length()));
+                }
+
+                mDetailStack.add(new DetailEntry(descriptor, detailFragment));
+            }
+
+            mRestoredDetailFragmentTags = null;
+            mRestoredDetailDescriptors = null;
+            mRestoredDetailSavedStates = null;
         }
 
-        transaction.commit();
+        final DetailEntry topEntry = getTopDetailEntry();
 
-        mDetailFragment = detailFragment;
+        if (topEntry != null && !topEntry.isRealized()) {
+            if (transaction == null) {
+                transaction = fragmentManager.beginTransaction();
+            }
+
+            realizeDetailEntry(topEntry, transaction, mDetailStack.size() - 1);
+        }
+
+        return transaction;
     }
 
-    public void setDetailViewTitle (final CharSequence title) { }
+    private FragmentTransaction placeDetailEntries (final FragmentManager fragmentManager,
+                                                    FragmentTransaction transaction,
+                                                    final boolean threePaneLayout) {
+        final int topDepth = mDetailStack.size() - 1;
 
-    public void setDetailViewSubtitle (final CharSequence subtitle) { }
+        for (int i = 0; i < topDepth; i++) {
+            final DetailEntry entry = mDetailStack.get(i);
+            final SplitViewDetailFragment detailFragment = entry.getFragment();
 
-    private void notifyDetailViewChangedListeners () {
-        if (mNotifyDetailViewListeners) {
-            for (final OnDetailViewChangedListener listener : mDetailViewChangedListeners) {
-                listener.onDetailViewChanged(mDetailFragment);
+            // In three pane mode the root stays live next to the sub-detail pane.
+            final boolean shown = threePaneLayout && i == 0;
+
+            if (detailFragment != null &&
+                detailFragment.getId() != getDetailContainerId(i, threePaneLayout)) {
+                if (transaction == null) {
+                    transaction = fragmentManager.beginTransaction();
+                }
+
+                // A fragment cannot move to another container, so it is created again there.
+                hibernateDetailEntry(entry, transaction);
+            }
+
+            if (shown) {
+                if (!entry.isRealized()) {
+                    if (transaction == null) {
+                        transaction = fragmentManager.beginTransaction();
+                    }
+
+                    realizeDetailEntry(entry, transaction, i);
+                } else if (entry.getFragment().isDetached()) {
+                    if (transaction == null) {
+                        transaction = fragmentManager.beginTransaction();
+                    }
+
+                    transaction.attach(entry.getFragment());
+                }
+            } else if (entry.isRealized() && !entry.getFragment().isDetached()) {
+                if (transaction == null) {
+                    transaction = fragmentManager.beginTransaction();
+                }
+
+                transaction.detach(entry.getFragment());
             }
         }
-    }
 
+        final DetailEntry topEntry = getTopDetailEntry();
+        final SplitViewDetailFragment topFragment =
+                (topEntry != null) ? topEntry.getFragment() : null;
 
-    // ================================================================================
-    // Properties
-    // ================================================================================
+        if (topFragment != null &&
+            topFragment.getId() != getDetailContainerId(topDepth, threePaneLayout)) {
+            if (transaction == null) {
+                transaction = fragmentManager.beginTransaction();
+            }
 
-    public abstract boolean isSplitViewLayout ();
+            if (hibernateDetailEntry(topEntry, transaction)) {
+                realizeDetailEntry(topEntry, transaction, topDepth);
+            }
+        }
 
+        return transaction;
+    }
 
-    // ================================================================================
-    // OnDetailViewChangedListener
-    // ================================================================================
+    private void realizeDetailEntry (final DetailEntry entry,
+                                     final FragmentTransaction transaction, final int depth) {
+        final SplitViewDetailDescriptor descriptor = entry.getDescriptor();
+        final int containerId = getDetailContainerId(depth, isThreePaneLayout(isSplitViewLayout()));
+        final SplitViewDetailFragment detailFragment = rehomeDetailFragment(
+                createDetailFragment(descriptor.getFragmentClassName(), descriptor.getCacheKey(),
+                                     descriptor.getArgs()), containerId, transaction);
 
-    public void addOnDetailViewChangedListener (final OnDetailViewChangedListener listener) {
-        if (!mDetailViewChangedListeners.contains(listener)) {
-            mDetailViewChangedListeners.add(listener);
+        entry.setFragment(detailFragment);
+
+        final Fragment.SavedState savedState = entry.getSavedState();
+        entry.setSavedState(null);
+
+        if (savedState != null && !detailFragment.isAdded() && !detailFragment.isDetached()) {
+            detailFragment.setInitialSavedState(savedState);
+        }
+
+        if (detailFragment.isDetached()) {
+            transaction.attach(detailFragment);
+        } else if (!detailFragment.isAdded()) {
+            transaction.add(containerId, detailFragment,
+                            getDetailFragmentTag(detailFragment, depth));
         }
     }
 
-    public void removeOnDetailViewChangedListener (final OnDetailViewChangedListener listener) {
-        mDetailViewChangedListeners.remove(listener);
+    // A detached fragment can only be attached to the container it was added to. Anywhere else
+    // it is replaced by a new instance that starts from its saved state.
+    private SplitViewDetailFragment rehomeDetailFragment (
+            final SplitViewDetailFragment detailFragment, final int containerId,
+            final FragmentTransaction transaction) {
+        if (!detailFragment.isDetached() || detailFragment.getId() == containerId) {
+            return detailFragment;
+        }
+
+        final Fragment.SavedState savedState =
+                getPaneFragmentManager().saveFragmentInstanceState(detailFragment);
+
+        transaction.remove(detailFragment);
+
+        final SplitViewDetailFragment rehomedFragment = (SplitViewDetailFragment) Fragment
+                .instantiate(getActivity(), detailFragment.getClass().getName(),
+                             detailFragment.getArguments());
+
+        mOperationCounts.mInstantiations++;
+
+        rehomedFragment.setInitialSavedState(savedState);
+        rehomedFragment.setCacheKey(detailFragment.getCacheKey());
+        rehomedFragment.setController(this);
+
+        return rehomedFragment;
+    }
+
+    // Other entries, such as a dialog added to the back stack, may sit between or above the
+    // detail markers, so every marker counts and not just the ones at the top.
+    private static int getDetailBackStackDepth (final FragmentManager fragmentManager) {
+        int depth = 0;
+
+        for (int i = fragmentManager.getBackStackEntryCount() - 1; i >= 0; i--) {
+            if (DETAIL_BACK_STACK_NAME.equals(fragmentManager.getBackStackEntryAt(i).getName())) {
+                depth++;
+            }
+        }
+
+        return depth;
+    }
+
+    // Pops up to count detail markers off the top of the back stack in a single pop. Other
+    // entries are never popped, so it stops at the first one. Returns the number popped.
+    private int popDetailMarkers (final FragmentManager fragmentManager, final int count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        mUpdatingDetailStack = true;
+        mNotifyDetailViewListeners = false;
+
+        try {
+            // Markers that are still pending have to be on the back stack to be counted.
+            fragmentManager.executePendingTransactions();
+            mPendingDetailMarkers = 0;
+
+            final int entryCount = fragmentManager.getBackStackEntryCount();
+            int popped = 0;
+
+            while (popped < count && popped < entryCount &&
+                   DETAIL_BACK_STACK_NAME.equals(fragmentManager
+                           .getBackStackEntryAt(entryCount - popped - 1).getName())) {
+                popped++;
+            }
+
+            if (popped > 0) {
+                fragmentManager.popBackStackImmediate(
+                        fragmentManager.getBackStackEntryAt(entryCount - popped).getId(),
+                        FragmentManager.POP_BACK_STACK_INCLUSIVE);
+            }
+
+            return popped;
+        } finally {
+            mNotifyDetailViewListeners = true;
+            mUpdatingDetailStack = false;
+        }
+    }
+
+    private boolean hibernateDetailEntry (final DetailEntry entry,
+                                          final FragmentTransaction transaction) {
+        final SplitViewDetailFragment detailFragment = entry.getFragment();
+
+        if (detailFragment == null || (!detailFragment.isAdded() && !detailFragment.isDetached())) {
+            return false;
+        }
+
+        // The FragmentManager restores every fragment it holds, so a hibernated entry keeps
+        // only what is needed to create its fragment again.
+        entry.hibernate(SplitViewDetailDescriptor.forFragment(detailFragment),
+                        getPaneFragmentManager().saveFragmentInstanceState(detailFragment));
+
+        transaction.remove(detailFragment);
+
+        return true;
+    }
+
+    private DetailEntry getTopDetailEntry () {
+        return mDetailStack.isEmpty() ? null : mDetailStack.get(mDetailStack.size() - 1);
+    }
+
+    private SplitViewDetailFragment getTopDetailFragment () {
+        final DetailEntry topEntry = getTopDetailEntry();
+
+        return (topEntry != null) ? topEntry.getFragment() : null;
+    }
+
+    private boolean isInDetailStack (final SplitViewDetailFragment detailFragment) {
+        for (final DetailEntry entry : mDetailStack) {
+            if (entry.getFragment() == detailFragment) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    // ================================================================================
+    // Pane Layout
+    // ================================================================================
+
+    // Returning a layout here lets the controller handle configuration changes in place. The
+    // Activity must declare the matching android:configChanges.
+    protected int getPaneLayoutId () {
+        return 0;
+    }
+
+    private void bindSplitPaneLayout (final SplitPaneLayout splitPaneLayout) {
+        if (mSplitPaneLayout == splitPaneLayout) {
+            return;
+        }
+
+        mSplitPaneLayout = splitPaneLayout;
+
+        if (!splitPaneLayout.isPaneResizable()) {
+            return;
+        }
+
+        splitPaneLayout.setOnPaneResizeListener(mPaneResizeListener);
+        applySavedMasterPaneRatio();
+    }
+
+    // Until the saved ratios have been loaded, the layout keeps its own ratio. It is applied
+    // once they arrive.
+    private void applySavedMasterPaneRatio () {
+        if (mSplitPaneLayout == null || !mSplitPaneLayout.isPaneResizable() ||
+            mMasterPaneRatios == null || getActivity() == null) {
+            return;
+        }
+
+        final Float masterPaneRatio = mMasterPaneRatios.get(getMasterPaneRatioKey());
+
+        if (masterPaneRatio != null) {
+            mSplitPaneLayout.setMasterPaneWidth(0);
+            mSplitPaneLayout.setMasterPaneRatio(masterPaneRatio);
+        }
+    }
+
+    // Reading the preferences may have to wait for the disk, so it happens on a worker thread
+    // as soon as the controller is created, well before its layout is bound.
+    private void loadMasterPaneRatios () {
+        final Context context = getActivity().getApplicationContext();
+        final String keyPrefix = getMasterPaneRatioKeyPrefix();
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run () {
+                final Map<String, Float> masterPaneRatios = new HashMap<String, Float>();
+                final SharedPreferences preferences =
+                        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+
+                for (final Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+                    if (entry.getKey().startsWith(keyPrefix) &&
+                        entry.getValue() instanceof Float) {
+                        masterPaneRatios.put(entry.getKey(), (Float) entry.getValue());
+                    }
+                }
+
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run () {
+                        // A ratio saved while loading is newer than the one on disk.
+                        if (mMasterPaneRatios != null) {
+                            masterPaneRatios.putAll(mMasterPaneRatios);
+                        }
+
+                        mMasterPaneRatios = masterPaneRatios;
+                        applySavedMasterPaneRatio();
+                    }
+                });
+            }
+        });
+    }
+
+    private void saveMasterPaneRatio (final float masterPaneRatio) {
+        if (getActivity() == null) {
+            return;
+        }
+
+        final String key = getMasterPaneRatioKey();
+
+        if (mMasterPaneRatios == null) {
+            mMasterPaneRatios = new HashMap<String, Float>();
+        }
+
+        mMasterPaneRatios.put(key, masterPaneRatio);
+        getPreferences().edit().putFloat(key, masterPaneRatio).apply();
+    }
+
+    // Each configuration keeps its own ratio, as the pane layouts differ between them.
+    private String getMasterPaneRatioKey () {
+        final Configuration configuration = getResources().getConfiguration();
+
+        return getMasterPaneRatioKeyPrefix() + configuration.orientation + ':' +
+               configuration.screenWidthDp;
+    }
+
+    // Controllers of the same class are told apart by their tag, or else their container id.
+    private String getMasterPaneRatioKeyPrefix () {
+        final String tag = getTag();
+
+        return PREF_MASTER_PANE_RATIO + getClass().getName() + ':' +
+               ((tag != null) ? "tag=" + tag : "id=" + getId()) + ':';
+    }
+
+    private SharedPreferences getPreferences () {
+        return getActivity().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+
+    // ================================================================================
+    // Master Fragment
+    // ================================================================================
+
+    public abstract int getMasterFragmentContainerId ();
+
+    public void setKeepMasterPaneAlive (final boolean keepAlive) {
+        mKeepMasterPaneAlive = keepAlive;
+        mPaneReconciler.setKeepMasterAlive(keepAlive && !mMasterKeepAliveSuspended);
+    }
+
+    public boolean isKeepMasterPaneAlive () {
+        return mKeepMasterPaneAlive;
+    }
+
+    private void releaseHiddenMasterPane () {
+        if (!mKeepMasterPaneAlive || mMasterKeepAliveSuspended) {
+            return;
+        }
+
+        mMasterKeepAliveSuspended = true;
+        mPaneReconciler.setKeepMasterAlive(false);
+
+        if (isResumed() && mMasterFragment != null && mMasterFragment.isHidden()) {
+            configureChildFragments();
+        }
+    }
+
+    private void updatePaneContainers (final boolean splitViewLayout) {
+        final View view = getView();
+
+        if (view == null) {
+            return;
+        }
+
+        final boolean hasDetail = mDetailFragment != null;
+
+        if (mPaneSwitchAnimator != null) {
+            // A pane switch that is already heading to this state is left to finish.
+            if (!splitViewLayout && mPaneSwitchShowsDetail == hasDetail) {
+                return;
+            }
+
+            mPaneSwitchAnimator.cancel();
+        }
+
+        final View masterContainer = view.findViewById(getMasterFragmentContainerId());
+        final View detailContainer = view.findViewById(getDetailFragmentContainerId());
+
+        if (masterContainer != null && masterContainer.getParent() instanceof SplitPaneLayout) {
+            final SplitPaneLayout splitPaneLayout = (SplitPaneLayout) masterContainer.getParent();
+
+            bindSplitPaneLayout(splitPaneLayout);
+
+            // A SplitPaneLayout serves both modes, so the policy decides how it arranges panes.
+            splitPaneLayout.setSplitPaneEnabled(splitViewLayout);
+        }
+
+        // In single pane mode only one container is showing. The other one is GONE, so it is
+        // left out of measure, layout and draw instead of being drawn underneath.
+        if (!splitViewLayout && startPaneSwitch(masterContainer, detailContainer, hasDetail)) {
+            updateSubDetailContainer(view, false);
+
+            return;
+        }
+
+        setPaneContainerVisible(masterContainer, splitViewLayout || !hasDetail);
+        setPaneContainerVisible(detailContainer, splitViewLayout || hasDetail);
+        updateSubDetailContainer(view, splitViewLayout);
+    }
+
+    private void updateSubDetailContainer (final View view, final boolean splitViewLayout) {
+        final int subDetailContainerId = getSubDetailFragmentContainerId();
+
+        if (subDetailContainerId != 0) {
+            setPaneContainerVisible(view.findViewById(subDetailContainerId),
+                                    isThreePaneLayout(splitViewLayout) &&
+                                    mDetailStack.size() > 1);
+        }
+    }
+
+    private boolean startPaneSwitch (final View masterContainer, final View detailContainer,
+                                     final boolean hasDetail) {
+        if (!mPaneTransitionsEnabled || !isResumed() || masterContainer == null ||
+            detailContainer == null) {
+            return false;
+        }
+
+        // Only a flip from one showing container to the other is animated.
+        final View hiddenContainer = hasDetail ? detailContainer : masterContainer;
+        final View shownContainer = hasDetail ? masterContainer : detailContainer;
+
+        if (hiddenContainer.getVisibility() != View.GONE ||
+            shownContainer.getVisibility() != View.VISIBLE) {
+            return false;
+        }
+
+        final Animator animator = PaneTransitionAnimator.createPaneSwitch(detailContainer,
+                                                                          hasDetail);
+
+        if (animator == null) {
+            return false;
+        }
+
+        // Both containers stay visible until the detail container has finished sliding.
+        hiddenContainer.setVisibility(View.VISIBLE);
+
+        animator.addListener(new AnimatorListenerAdapter() {
+            private boolean mCanceled;
+
+            @Override
+            public void onAnimationCancel (final Animator animation) {
+                mCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd (final Animator animation) {
+                mPaneSwitchAnimator = null;
+
+                if (!mCanceled) {
+                    updatePaneContainers(isSplitViewLayout());
+                }
+            }
+        });
+
+        mPaneSwitchAnimator = animator;
+        mPaneSwitchShowsDetail = hasDetail;
+        animator.start();
+
+        return true;
+    }
+
+    private static void setPaneContainerVisible (final View container, final boolean visible) {
+        final int visibility = visible ? View.VISIBLE : View.GONE;
+
+        if (container != null && container.getVisibility() != visibility) {
+            container.setVisibility(visibility);
+        }
+    }
+
+    public void setMasterFragment (final SplitViewMasterFragment masterFragment) {
+        masterFragment.setController(this);
+
+        final FragmentTransaction transaction = getPaneFragmentManager().beginTransaction();
+        transaction.replace(getMasterFragmentContainerId(), masterFragment,
+                            masterFragment.getClass().getSimpleName());
+        transaction.commit();
+        mOperationCounts.mCommits++;
+
+        mMasterFragment = masterFragment;
+    }
+
+
+    // ================================================================================
+    // Detail Fragment
+    // ================================================================================
+
+    public abstract int getDetailFragmentContainerId ();
+
+    public void setDetailFragment (final SplitViewDetailFragment detailFragment) {
+        setDetailFragment(detailFragment, getPaneFragmentManager().beginTransaction());
+    }
+
+    public void setDetailFragment (final SplitViewDetailFragment detailFragment,
+                                   final FragmentTransaction transaction) {
+        cancelDetailRequest();
+
+        mNavigationMetrics.begin((detailFragment != null) ? SplitViewNavigationMetrics.KIND_SET
+                                                          : SplitViewNavigationMetrics.KIND_POP);
+
+        if (mTransactionBatchingEnabled) {
+            enqueueOperation(PendingOperation.SET, detailFragment, transaction);
+
+            return;
+        }
+
+        if (detailFragment == null) {
+            if (popDetailMarkers(getPaneFragmentManager(), Integer.MAX_VALUE) > 0) {
+                configureChildFragments();
+            }
+
+            return;
+        }
+
+        replaceDetailRoot(detailFragment, transaction);
+    }
+
+    public void pushDetailFragment (final SplitViewDetailFragment detailFragment,
+                                    final FragmentTransaction transaction) {
+        detailFragment.setController(this);
+
+        cancelDetailRequest();
+
+        mNavigationMetrics.begin(SplitViewNavigationMetrics.KIND_PUSH);
+
+        if (mTransactionBatchingEnabled) {
+            enqueueOperation(PendingOperation.PUSH, detailFragment, transaction);
+
+            return;
+        }
+
+        pushDetail(detailFragment, transaction);
+    }
+
+    public void popDetailFragment () {
+        cancelDetailRequest();
+
+        mNavigationMetrics.begin(SplitViewNavigationMetrics.KIND_POP);
+
+        if (mTransactionBatchingEnabled) {
+            enqueueOperation(PendingOperation.POP, null, null);
+
+            return;
+        }
+
+        final FragmentManager fragmentManager = getPaneFragmentManager();
+
+        if (getDetailBackStackDepth(fragmentManager) > 0) {
+            fragmentManager.popBackStack();
+        }
+    }
+
+    public void setDetailStack (final List<SplitViewDetailDescriptor> descriptors) {
+        if (descriptors == null || descriptors.isEmpty()) {
+            setDetailFragment(null);
+
+            return;
+        }
+
+        cancelDetailRequest();
+
+        // The new stack replaces everything that was queued before it.
+        coalescePendingOperations();
+
+        mNavigationMetrics.begin(SplitViewNavigationMetrics.KIND_SET);
+
+        final SplitViewDetailDescriptor topDescriptor = descriptors.get(descriptors.size() - 1);
+        final SplitViewDetailFragment detailFragment =
+                obtainDetailFragment(topDescriptor.getFragmentClassName(),
+                                     topDescriptor.getCacheKey(), topDescriptor.getArgs());
+
+        replaceDetailStack(descriptors, detailFragment,
+                           getPaneFragmentManager().beginTransaction());
+    }
+
+    private void replaceDetailRoot (final SplitViewDetailFragment detailFragment,
+                                    final FragmentTransaction transaction) {
+        replaceDetailStack(null, detailFragment, transaction);
+    }
+
+    private void replaceDetailStack (final List<SplitViewDetailDescriptor> descriptors,
+                                     final SplitViewDetailFragment detailFragment,
+                                     final FragmentTransaction transaction) {
+        final FragmentManager fragmentManager = getPaneFragmentManager();
+        final boolean splitViewLayout = isSplitViewLayout();
+
+        // In single pane mode the first detail replaces the master, which is a pane switch.
+        applyPaneTransition(transaction, (!splitViewLayout && mDetailStack.isEmpty())
+                                         ? FragmentTransaction.TRANSIT_FRAGMENT_OPEN
+                                         : FragmentTransaction.TRANSIT_FRAGMENT_FADE);
+
+        detailFragment.setController(this);
+
+        // The detail back stack entries carry no fragment operations, so popping them does not
+        // bring any of the old detail fragments back. They are removed below instead. Markers
+        // below another entry stay and count towards the new stack.
+        if (getDetailBackStackDepth(fragmentManager) > 0 || mPendingDetailMarkers > 0) {
+            popDetailMarkers(fragmentManager, Integer.MAX_VALUE);
+        }
+
+        final int keptMarkers = getDetailBackStackDepth(fragmentManager) + mPendingDetailMarkers;
+
+        for (final DetailEntry entry : mDetailStack) {
+            final SplitViewDetailFragment fragment = entry.getFragment();
+
+            if (fragment == null || fragment == detailFragment) {
+                continue;
+            }
+
+            if (mDetailFragmentCache != null && fragment.getCacheKey() != null) {
+                transaction.detach(fragment);
+                mDetailFragmentCache.put(fragment);
+            } else {
+                transaction.remove(fragment);
+            }
+        }
+
+        removeEvictedDetailFragments(transaction);
+
+        final int depth = (descriptors != null) ? descriptors.size() - 1 : 0;
+        final int containerId =
+                getDetailContainerId(depth, isThreePaneLayout(splitViewLayout));
+
+        final SplitViewDetailFragment topFragment =
+                rehomeDetailFragment(detailFragment, containerId, transaction);
+
+        if (topFragment.isDetached()) {
+            transaction.attach(topFragment);
+        } else if (!isInDetailStack(topFragment)) {
+            transaction.add(containerId, topFragment,
+                            getDetailFragmentTag(topFragment, depth));
+        }
+
+        mDetailStack.clear();
+
+        // Only the top entry exists as a fragment. The ones below it are created when they
+        // are popped back to.
+        for (int i = 0; i < depth; i++) {
+            mDetailStack.add(new DetailEntry(descriptors.get(i), null));
+        }
+
+        mDetailStack.add(new DetailEntry((descriptors != null) ? descriptors.get(depth) : null,
+                                         topFragment));
+
+        mPaneReconciler.reconcile(fragmentManager, transaction, mMasterFragment, topFragment,
+                                  splitViewLayout);
+        transaction.commit();
+        mOperationCounts.mCommits++;
+
+        mNavigationMetrics.markCommitted(topFragment);
+
+        final int missingMarkers = depth + 1 - keptMarkers;
+
+        mPendingDetailMarkers += Math.max(0, missingMarkers);
+
+        for (int i = 0; i < missingMarkers; i++) {
+            fragmentManager.beginTransaction().addToBackStack(DETAIL_BACK_STACK_NAME).commit();
+            mOperationCounts.mCommits++;
+        }
+
+        mDetailFragment = topFragment;
+
+        // The pane switch has to be under way before the transaction runs its animators.
+        if (mPaneTransitionsEnabled) {
+            updatePaneContainers(splitViewLayout);
+        }
+    }
+
+    private void pushDetail (final SplitViewDetailFragment detailFragment,
+                             final FragmentTransaction transaction) {
+        final SplitViewDetailFragment parentFragment = getTopDetailFragment();
+
+        if (parentFragment == null) {
+            replaceDetailRoot(detailFragment, transaction);
+
+            return;
+        }
+
+        applyPaneTransition(transaction, FragmentTransaction.TRANSIT_FRAGMENT_OPEN);
+
+        final boolean threePaneLayout = isThreePaneLayout(isSplitViewLayout());
+
+        // Leave room for the fragment being pushed.
+        trimLiveDetailEntries(transaction, 1, mMaxLiveDetailDepth);
+
+        // In three pane mode the root stays next to the sub-detail pane the push opens.
+        if (getTopDetailEntry().isRealized() && !(threePaneLayout && mDetailStack.size() == 1)) {
+            transaction.detach(parentFragment);
+        }
+
+        transaction.add(getDetailContainerId(mDetailStack.size(), threePaneLayout),
+                        detailFragment,
+                        getDetailFragmentTag(detailFragment, mDetailStack.size()));
+        transaction.commit();
+        mOperationCounts.mCommits++;
+
+        mNavigationMetrics.markCommitted(detailFragment);
+
+        mPendingDetailMarkers++;
+
+        getPaneFragmentManager().beginTransaction().addToBackStack(DETAIL_BACK_STACK_NAME).commit();
+        mOperationCounts.mCommits++;
+
+        mDetailStack.add(new DetailEntry(null, detailFragment));
+        mDetailFragment = detailFragment;
+    }
+
+    private static String getDetailFragmentTag (final SplitViewDetailFragment detailFragment,
+                                                final int depth) {
+        final String cacheKey = detailFragment.getCacheKey();
+
+        return (cacheKey != null) ? CACHED_DETAIL_FRAGMENT_TAG + cacheKey
+                                  : DETAIL_FRAGMENT_TAG + depth;
+    }
+
+    public void setDetailViewTitle (final CharSequence title) { }
+
+    public void setDetailViewSubtitle (final CharSequence subtitle) { }
+
+    private void notifyDetailViewChangedListeners () {
+        if (mNotifyDetailViewListeners) {
+            mDetailViewChangedDispatcher.dispatch(mDetailFragment);
+        }
+    }
+
+
+    // ================================================================================
+    // Fragment Manager
+    // ================================================================================
+
+    // With a child fragment manager, the panes and their back stack belong to this controller
+    // alone. It is only available from API 17; older releases keep using the Activity's.
+    // Nested fragments cannot be retained, so the controller then restores itself from its
+    // saved state instead of being retained.
+    public void setChildFragmentManagerEnabled (final boolean enabled) {
+        if (mMasterFragment != null) {
+            throw new IllegalStateException(
+                    "The fragment manager cannot be changed once a master Fragment is set.");
+        }
+
+        mChildFragmentManagerEnabled =
+                enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1;
+
+        setRetainInstance(!mChildFragmentManagerEnabled);
+    }
+
+    public boolean isChildFragmentManagerEnabled () {
+        return mChildFragmentManagerEnabled;
+    }
+
+    @TargetApi (Build.VERSION_CODES.JELLY_BEAN_MR1)
+    protected FragmentManager getPaneFragmentManager () {
+        return mChildFragmentManagerEnabled ? getChildFragmentManager() : getFragmentManager();
+    }
+
+    // The Activity only pops its own back stack, so it has to offer back presses to a
+    // controller with a child fragment manager. Returns whether a detail was popped.
+    public boolean onBackPressed () {
+        if (!isResumed() || getDetailBackStackDepth(getPaneFragmentManager()) == 0) {
+            return false;
+        }
+
+        popDetailFragment();
+
+        return true;
+    }
+
+
+    // ================================================================================
+    // Sub-Detail Pane
+    // ================================================================================
+
+    // Returning a container here lets pushes open a third pane next to the root detail, as
+    // long as the split layout in use has a view with this id.
+    public int getSubDetailFragmentContainerId () {
+        return 0;
+    }
+
+    public boolean isThreePaneLayout () {
+        return isThreePaneLayout(isSplitViewLayout());
+    }
+
+    private boolean isThreePaneLayout (final boolean splitViewLayout) {
+        final int subDetailContainerId = getSubDetailFragmentContainerId();
+        final View view = getView();
+
+        return splitViewLayout && subDetailContainerId != 0 && view != null &&
+               view.findViewById(subDetailContainerId) != null;
+    }
+
+    private int getDetailContainerId (final int depth, final boolean threePaneLayout) {
+        return (threePaneLayout && depth > 0) ? getSubDetailFragmentContainerId()
+                                              : getDetailFragmentContainerId();
+    }
+
+
+    // ================================================================================
+    // Thread-Safe Navigation
+    // ================================================================================
+
+    public void postDetailFragment (final Fragment source,
+                                    final SplitViewDetailFragment detailFragment) {
+        postNavigationCommand(
+                new NavigationCommand(NavigationCommand.SET, source, detailFragment));
+    }
+
+    public void postPushDetailFragment (final Fragment source,
+                                        final SplitViewDetailFragment detailFragment) {
+        postNavigationCommand(
+                new NavigationCommand(NavigationCommand.PUSH, source, detailFragment));
+    }
+
+    public void postPopDetailFragment (final Fragment source) {
+        postNavigationCommand(new NavigationCommand(NavigationCommand.POP, source, null));
+    }
+
+    private void postNavigationCommand (final NavigationCommand command) {
+        mNavigationCommands.offer(command);
+
+        scheduleNavigationDrain();
+    }
+
+    private void scheduleNavigationDrain () {
+        // Only the first poster since the last drain pays for a Handler message.
+        if (mNavigationDrainScheduled.compareAndSet(false, true)) {
+            mHandler.post(mNavigationDrainRunnable);
+        }
+    }
+
+    private void drainNavigationCommands () {
+        mNavigationDrainScheduled.set(false);
+
+        if (!isResumed()) {
+            return;
+        }
+
+        NavigationCommand command;
+
+        while ((command = mNavigationCommands.poll()) != null) {
+            final Fragment source = command.source;
+
+            if (source != null && (!source.isAdded() || source.isDetached())) {
+                continue;
+            }
+
+            switch (command.type) {
+                case NavigationCommand.SET: {
+                    setDetailFragment(command.detailFragment);
+
+                    break;
+                }
+                case NavigationCommand.PUSH: {
+                    pushDetailFragment(command.detailFragment,
+                                       getPaneFragmentManager().beginTransaction());
+
+                    break;
+                }
+                case NavigationCommand.POP: {
+                    popDetailFragment();
+
+                    break;
+                }
+            }
+        }
+    }
+
+    private static final class NavigationCommand {
+        static final int SET = 0;
+        static final int PUSH = 1;
+        static final int POP = 2;
+
+        final int type;
+        final Fragment source;
+        final SplitViewDetailFragment detailFragment;
+
+        NavigationCommand (final int type, final Fragment source,
+                           final SplitViewDetailFragment detailFragment) {
+            this.type = type;
+            this.source = source;
+            this.detailFragment = detailFragment;
+        }
+    }
+
+
+    // ================================================================================
+    // Detail Requests
+    // ================================================================================
+
+    public void requestDetailFragment (
+            final Class<? extends SplitViewDetailFragment> fragmentClass, final String argumentKey,
+            final Bundle args) {
+        if (mRequestedFragmentClass != null) {
+            final String droppedKey = DetailFragmentCache
+                    .getCacheKey(mRequestedFragmentClass, mRequestedArgumentKey);
+
+            // Asking for the same keyed fragment again only restarts the delay.
+            if (droppedKey == null ||
+                !droppedKey.equals(DetailFragmentCache.getCacheKey(fragmentClass, argumentKey))) {
+                if (droppedKey != null && mDetailPrefetcher.isPrefetching(droppedKey)) {
+                    cancelDetailPrefetch();
+                }
+
+                mDroppedDetailRequestCount++;
+            }
+        }
+
+        mRequestedFragmentClass = fragmentClass;
+        mRequestedArgumentKey = argumentKey;
+        mRequestedArgs = args;
+
+        // Every new request restarts the settle delay; only the last one gets built.
+        mHandler.removeCallbacks(mDetailRequestRunnable);
+        mHandler.postDelayed(mDetailRequestRunnable, mDetailRequestSettleDelay);
+    }
+
+    public void cancelDetailRequest () {
+        if (mRequestedFragmentClass == null) {
+            return;
+        }
+
+        mHandler.removeCallbacks(mDetailRequestRunnable);
+
+        mRequestedFragmentClass = null;
+        mRequestedArgumentKey = null;
+        mRequestedArgs = null;
+    }
+
+    public void setDetailRequestSettleDelay (final long delayMillis) {
+        mDetailRequestSettleDelay = Math.max(0, delayMillis);
+    }
+
+    public long getDetailRequestSettleDelay () {
+        return mDetailRequestSettleDelay;
+    }
+
+    public int getDroppedDetailRequestCount () {
+        return mDroppedDetailRequestCount;
+    }
+
+    private void commitDetailRequest () {
+        final Class<? extends SplitViewDetailFragment> fragmentClass = mRequestedFragmentClass;
+        final String argumentKey = mRequestedArgumentKey;
+        final Bundle args = mRequestedArgs;
+
+        cancelDetailRequest();
+
+        if (fragmentClass == null || !isResumed()) {
+            return;
+        }
+
+        final SplitViewDetailFragment detailFragment =
+                obtainDetailFragment(fragmentClass, argumentKey, args);
+
+        if (detailFragment != mDetailFragment) {
+            setDetailFragment(detailFragment);
+        }
+    }
+
+
+    // ================================================================================
+    // Detail Restoration
+    // ================================================================================
+
+    public void setLazyDetailRestorationEnabled (final boolean enabled) {
+        mLazyDetailRestorationEnabled = enabled;
+    }
+
+    public boolean isLazyDetailRestorationEnabled () {
+        return mLazyDetailRestorationEnabled;
+    }
+
+    public void setMaxLiveDetailDepth (final int maxLiveDepth) {
+        if (maxLiveDepth < 1) {
+            throw new IllegalArgumentException("Max live detail depth must be at least 1.");
+        }
+
+        mMaxLiveDetailDepth = maxLiveDepth;
+
+        applyLiveDetailDepth();
+    }
+
+    public int getMaxLiveDetailDepth () {
+        return mMaxLiveDetailDepth;
+    }
+
+    public int getLiveDetailEntryCount () {
+        int count = 0;
+
+        for (final DetailEntry entry : mDetailStack) {
+            if (entry.isRealized()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public int getHibernatedDetailEntryCount () {
+        return mDetailStack.size() - getLiveDetailEntryCount();
+    }
+
+    private void applyLiveDetailDepth () {
+        if (!isAdded()) {
+            return;
+        }
+
+        final FragmentTransaction transaction = getPaneFragmentManager().beginTransaction();
+
+        if (trimLiveDetailEntries(transaction, 0, mMaxLiveDetailDepth)) {
+            transaction.commit();
+            mOperationCounts.mCommits++;
+        }
+    }
+
+    private boolean trimLiveDetailEntries (final FragmentTransaction transaction,
+                                           final int reserved, final int maxLiveDepth) {
+        // The deepest entries go first; the top entry is only trimmed when a push covers it.
+        final int end = (reserved > 0) ? mDetailStack.size() : mDetailStack.size() - 1;
+
+        // A root shown in three pane mode is neither counted nor trimmed.
+        final int start = (isThreePaneLayout(isSplitViewLayout()) && !mDetailStack.isEmpty() &&
+                           mDetailStack.get(0).isRealized()) ? 1 : 0;
+
+        int liveCount = getLiveDetailEntryCount() - start + reserved;
+        boolean trimmed = false;
+
+        for (int i = start; i < end && liveCount > maxLiveDepth; i++) {
+            if (hibernateDetailEntry(mDetailStack.get(i), transaction)) {
+                liveCount--;
+                trimmed = true;
+            }
+        }
+
+        return trimmed;
+    }
+
+
+    // ================================================================================
+    // Retention
+    // ================================================================================
+
+    public void setRetentionPolicy (final int retentionPolicy) {
+        if (retentionPolicy != RETAIN_ALL && retentionPolicy != RETAIN_VISIBLE &&
+            retentionPolicy != RETAIN_BUDGET) {
+            throw new IllegalArgumentException("Unknown retention policy: " + retentionPolicy);
+        }
+
+        mRetentionPolicy = retentionPolicy;
+    }
+
+    public int getRetentionPolicy () {
+        return mRetentionPolicy;
+    }
+
+    // The budget is a number of fragments, not bytes: with RETAIN_BUDGET, at most this many
+    // hidden fragments are retained across a configuration change. Visible ones always are.
+    public void setRetentionBudget (final int maxRetainedHiddenFragments) {
+        mRetentionBudget = Math.max(0, maxRetainedHiddenFragments);
+    }
+
+    public int getRetentionBudget () {
+        return mRetentionBudget;
+    }
+
+    // Once memory has run low, covered detail entries keep only what is needed to create their
+    // fragments again, and no hidden fragment is retained until the instance state is saved.
+    private void releaseCoveredDetailFragments () {
+        mRetentionTrimmed = true;
+        applyRetentionPolicy(RETAIN_VISIBLE);
+
+        // After onPause() the instance state may already be saved, so nothing is committed.
+        if (!isResumed()) {
+            return;
+        }
+
+        final FragmentTransaction transaction = getPaneFragmentManager().beginTransaction();
+
+        if (trimLiveDetailEntries(transaction, 0, 1)) {
+            transaction.commit();
+            mOperationCounts.mCommits++;
+        }
+    }
+
+    private void applyRetentionPolicy () {
+        final int retentionPolicy = mRetentionTrimmed ? RETAIN_VISIBLE : mRetentionPolicy;
+
+        mRetentionTrimmed = false;
+
+        applyRetentionPolicy(retentionPolicy);
+    }
+
+    private void applyRetentionPolicy (final int retentionPolicy) {
+        // Fragments nested in the child fragment manager cannot be retained at all.
+        if (mChildFragmentManagerEnabled) {
+            return;
+        }
+
+        int budget;
+
+        switch (retentionPolicy) {
+            case RETAIN_VISIBLE: {
+                budget = 0;
+
+                break;
+            }
+            case RETAIN_BUDGET: {
+                budget = mRetentionBudget;
+
+                break;
+            }
+            default: {
+                budget = Integer.MAX_VALUE;
+
+                break;
+            }
+        }
+
+        // Hidden fragments nearest to the top of the stack are the likeliest to be shown next.
+        budget = retainFragment(mMasterFragment, budget);
+
+        for (int i = mDetailStack.size() - 1; i >= 0; i--) {
+            budget = retainFragment(mDetailStack.get(i).getFragment(), budget);
+        }
+
+        if (mDetailFragmentCache != null) {
+            for (final SplitViewDetailFragment detailFragment : mDetailFragmentCache.fragments()) {
+                budget = retainFragment(detailFragment, budget);
+            }
+        }
+    }
+
+    private static int retainFragment (final Fragment fragment, final int budget) {
+        if (fragment == null) {
+            return budget;
+        }
+
+        if (fragment.isVisible()) {
+            fragment.setRetainInstance(true);
+
+            return budget;
+        }
+
+        fragment.setRetainInstance(budget > 0);
+
+        return Math.max(0, budget - 1);
+    }
+
+
+    // ================================================================================
+    // Detail Fragment Cache
+    // ================================================================================
+
+    public void setDetailFragmentCacheSize (final int maxSize) {
+        if (mDetailFragmentCache != null) {
+            if (mDetailFragmentCache.maxSize() == maxSize) {
+                return;
+            }
+
+            mDetailFragmentCache.evictAll();
+            removeEvictedDetailFragments(null);
+        }
+
+        mDetailFragmentCache = (maxSize > 0) ? new DetailFragmentCache(maxSize) : null;
+    }
+
+    public int getDetailFragmentCacheSize () {
+        return (mDetailFragmentCache != null) ? mDetailFragmentCache.maxSize() : 0;
+    }
+
+    @SuppressWarnings ("unchecked")
+    public <T extends SplitViewDetailFragment> T obtainDetailFragment (final Class<T> fragmentClass,
+                                                                       final String argumentKey,
+                                                                       final Bundle args) {
+        return (T) obtainDetailFragment(fragmentClass.getName(),
+                                        DetailFragmentCache.getCacheKey(fragmentClass,
+                                                                        argumentKey), args);
+    }
+
+    private SplitViewDetailFragment obtainDetailFragment (final String fragmentClassName,
+                                                          final String cacheKey,
+                                                          final Bundle args) {
+        SplitViewDetailFragment detailFragment = mDetailPrefetcher.take(cacheKey);
+
+        if (detailFragment == null) {
+            cancelDetailPrefetch();
+
+            final long createStartTime = System.nanoTime();
+
+            detailFragment = createDetailFragment(fragmentClassName, cacheKey, args);
+
+            mNavigationMetrics.recordCreate(System.nanoTime() - createStartTime);
+        }
+
+        return detailFragment;
+    }
+
+    private SplitViewDetailFragment createDetailFragment (final String fragmentClassName,
+                                                          final String cacheKey,
+                                                          final Bundle args) {
+        if (cacheKey != null) {
+            for (final DetailEntry entry : mDetailStack) {
+                final SplitViewDetailFragment detailFragment = entry.getFragment();
+
+                if (detailFragment != null && cacheKey.equals(detailFragment.getCacheKey())) {
+                    return detailFragment;
+                }
+            }
+        }
+
+        SplitViewDetailFragment detailFragment = null;
+
+        if (mDetailFragmentCache != null && cacheKey != null) {
+            detailFragment = mDetailFragmentCache.remove(cacheKey);
+
+            if (detailFragment == null) {
+                // Cached fragments outlive the cache itself when the process is recreated.
+                final Fragment fragment = getPaneFragmentManager()
+                        .findFragmentByTag(CACHED_DETAIL_FRAGMENT_TAG + cacheKey);
+
+                if (fragment instanceof SplitViewDetailFragment && fragment.isDetached() &&
+                    fragment.getClass().getName().equals(fragmentClassName)) {
+                    detailFragment = (SplitViewDetailFragment) fragment;
+                }
+            }
+        }
+
+        if (detailFragment == null) {
+            detailFragment = (SplitViewDetailFragment) Fragment
+                    .instantiate(getActivity(), fragmentClassName, args);
+
+            mOperationCounts.mInstantiations++;
+        }
+
+        if (mDetailFragmentCache != null) {
+            detailFragment.setCacheKey(cacheKey);
+        }
+
+        detailFragment.setController(this);
+
+        return detailFragment;
+    }
+
+    private void removeEvictedDetailFragments (final FragmentTransaction transaction) {
+        if (mDetailFragmentCache == null || !mDetailFragmentCache.hasEvictedFragments()) {
+            return;
+        }
+
+        if (transaction == null && !isAdded()) {
+            mDetailFragmentCache.getEvictedFragments().clear();
+
+            return;
+        }
+
+        final FragmentTransaction removeTransaction =
+                (transaction != null) ? transaction : getPaneFragmentManager().beginTransaction();
+
+        for (final SplitViewDetailFragment detailFragment : mDetailFragmentCache
+                .getEvictedFragments()) {
+            removeTransaction.remove(detailFragment);
+        }
+
+        mDetailFragmentCache.getEvictedFragments().clear();
+
+        if (transaction == null) {
+            removeTransaction.commitAllowingStateLoss();
+            mOperationCounts.mCommits++;
+        }
+    }
+
+
+    // ================================================================================
+    // Detail Prefetching
+    // ================================================================================
+
+    public void prefetchDetailFragment (
+            final Class<? extends SplitViewDetailFragment> fragmentClass, final String argumentKey,
+            final Bundle args) {
+        final String cacheKey = DetailFragmentCache.getCacheKey(fragmentClass, argumentKey);
+
+        // Without a key the prefetched fragment could not be matched to the one shown later.
+        if (cacheKey == null || mDetailPrefetcher.isPrefetching(cacheKey) || !isAdded()) {
+            return;
+        }
+
+        cancelDetailPrefetch();
+
+        final SplitViewDetailFragment detailFragment =
+                createDetailFragment(fragmentClass.getName(), cacheKey, args);
+
+        if (isInDetailStack(detailFragment)) {
+            return;
+        }
+
+        mDetailPrefetcher.start(cacheKey, detailFragment);
+
+        detailFragment.onPrefetch(getActivity());
+
+        final int layoutResId = detailFragment.getAsyncLayoutId();
+
+        if (layoutResId != 0) {
+            // Warm the view pool so the fragment's onCreateView() finds its layout ready.
+            warmDetailViewPool(fragmentClass, layoutResId);
+        }
+    }
+
+    public void cancelDetailPrefetch () {
+        final SplitViewDetailFragment detailFragment = mDetailPrefetcher.discard();
+
+        if (detailFragment == null) {
+            return;
+        }
+
+        if (mWarmInflationRequest != null) {
+            mWarmInflationRequest.cancel();
+            mWarmInflationRequest = null;
+        }
+
+        detailFragment.onPrefetchDiscarded();
+
+        // Fragments taken from the cache are still detached in the FragmentManager.
+        if (detailFragment.isDetached() && mDetailFragmentCache != null &&
+            detailFragment.getCacheKey() != null) {
+            mDetailFragmentCache.put(detailFragment);
+            removeEvictedDetailFragments(null);
+        }
+    }
+
+    public int getPrefetchHitCount () {
+        return mDetailPrefetcher.getHitCount();
+    }
+
+    public int getPrefetchMissCount () {
+        return mDetailPrefetcher.getMissCount();
+    }
+
+    public void resetPrefetchStatistics () {
+        mDetailPrefetcher.resetStatistics();
+    }
+
+
+    // ================================================================================
+    // Detail Views
+    // ================================================================================
+
+    public void setDetailViewPoolSize (final int maxSizePerClass) {
+        mDetailViewPool.setMaxSizePerClass(maxSizePerClass);
+    }
+
+    public int getDetailViewPoolSize () {
+        return mDetailViewPool.getMaxSizePerClass();
+    }
+
+    View acquireDetailView (final Class<? extends SplitViewDetailFragment> fragmentClass) {
+        final View view = mDetailViewPool.acquire(fragmentClass);
+
+        if (view != null) {
+            mOperationCounts.mRecycledViews++;
+        }
+
+        return view;
+    }
+
+    void onDetailViewInflated () {
+        mOperationCounts.mInflations++;
+    }
+
+    void releaseDetailView (final Class<? extends SplitViewDetailFragment> fragmentClass,
+                            final View view) {
+        final Activity activity = getActivity();
+
+        if (activity != null && !activity.isChangingConfigurations() && !activity.isFinishing()) {
+            mDetailViewPool.release(fragmentClass, view);
+        }
+    }
+
+
+    private void warmDetailViewPool (final Class<? extends SplitViewDetailFragment> fragmentClass,
+                                     final int layoutResId) {
+        final Activity activity = getActivity();
+
+        if (mWarmInflationRequest != null) {
+            mWarmInflationRequest.cancel();
+        }
+
+        mWarmInflationRequest = mAsyncDetailInflater
+                .inflate(activity.getLayoutInflater(), layoutResId, new FrameLayout(activity),
+                         new AsyncDetailInflater.Callback() {
+                    @Override
+                    public void onInflated (final ViewGroup placeholder, final View view) {
+                        mWarmInflationRequest = null;
+                        onDetailViewInflated();
+                        releaseDetailView(fragmentClass, view);
+                    }
+
+                    @Override
+                    public void onInflationFailed (final ViewGroup placeholder,
+                                                   final RuntimeException e) {
+                        mWarmInflationRequest = null;
+                    }
+                });
+    }
+
+    AsyncDetailInflater.Request inflateDetailViewAsync (
+            final LayoutInflater inflater, final int layoutResId, final ViewGroup placeholder,
+            final AsyncDetailInflater.Callback callback) {
+        return mAsyncDetailInflater.inflate(inflater, layoutResId, placeholder, callback);
+    }
+
+
+    // ================================================================================
+    // Pane Transitions
+    // ================================================================================
+
+    public void setPaneTransitionsEnabled (final boolean enabled) {
+        mPaneTransitionsEnabled = enabled;
+
+        if (!enabled && mPaneSwitchAnimator != null) {
+            mPaneSwitchAnimator.end();
+        }
+    }
+
+    public boolean isPaneTransitionsEnabled () {
+        return mPaneTransitionsEnabled;
+    }
+
+    private void applyPaneTransition (final FragmentTransaction transaction, final int transit) {
+        if (mPaneTransitionsEnabled) {
+            transaction.setTransition(transit);
+        }
+    }
+
+    Animator onCreatePaneAnimator (final SplitViewAbsFragment fragment, final int transit,
+                                   final boolean enter) {
+        if (!mPaneTransitionsEnabled) {
+            return null;
+        }
+
+        // While the detail container slides as a whole, the detail views inside it stay put.
+        // Returning no animator would let the FragmentManager fall back to its own.
+        if (mPaneSwitchAnimator != null && fragment instanceof SplitViewDetailFragment) {
+            return PaneTransitionAnimator.hold(fragment.getView());
+        }
+
+        return PaneTransitionAnimator.create(fragment.getView(), transit, enter);
+    }
+
+
+    // ================================================================================
+    // Transaction Batching
+    // ================================================================================
+
+    public void setTransactionBatchingEnabled (final boolean enabled) {
+        if (mTransactionBatchingEnabled == enabled) {
+            return;
+        }
+
+        mTransactionBatchingEnabled = enabled;
+
+        if (!enabled && mTransactionScheduler.isScheduled()) {
+            mTransactionScheduler.cancel();
+            commitPendingOperations();
+        }
+    }
+
+    public boolean isTransactionBatchingEnabled () {
+        return mTransactionBatchingEnabled;
+    }
+
+    public int getCoalescedCommitCount () {
+        return mCoalescedCommitCount;
+    }
+
+    private void enqueueOperation (final int type, final SplitViewDetailFragment detailFragment,
+                                   final FragmentTransaction transaction) {
+        if (type == PendingOperation.SET) {
+            // Setting the detail fragment clears the whole detail stack, so anything requested
+            // before it in this frame would never be seen.
+            coalescePendingOperations();
+        } else if (type == PendingOperation.POP && !mPendingOperations.isEmpty()) {
+            final int lastIndex = mPendingOperations.size() - 1;
+            final PendingOperation last = mPendingOperations.get(lastIndex);
+
+            if (last.type == PendingOperation.PUSH) {
+                mPendingOperations.remove(lastIndex);
+                mCoalescedCommitCount += last.getCommitCost() + 1;
+
+                return;
+            } else if (last.type == PendingOperation.SET && last.detailFragment != null) {
+                mPendingOperations.set(lastIndex,
+                                       new PendingOperation(PendingOperation.SET, null, null));
+                mCoalescedCommitCount += last.getCommitCost();
+
+                return;
+            }
+        }
+
+        mPendingOperations.add(new PendingOperation(type, detailFragment, transaction));
+        mTransactionScheduler.schedule();
+    }
+
+    private void coalescePendingOperations () {
+        while (!mPendingOperations.isEmpty()) {
+            mCoalescedCommitCount +=
+                    mPendingOperations.remove(mPendingOperations.size() - 1).getCommitCost();
+        }
+    }
+
+    // Commits are only made while resumed, as the instance state is saved after onPause().
+    // Operations requested while paused are held until onResume().
+    private void commitPendingOperations () {
+        if (mPendingOperations.isEmpty() && !mConfigurePending) {
+            return;
+        }
+
+        if (!isAdded() || mMasterFragment == null) {
+            mPendingOperations.clear();
+            mConfigurePending = false;
+
+            return;
+        }
+
+        if (!isResumed()) {
+            return;
+        }
+
+        final FragmentManager fragmentManager = getPaneFragmentManager();
+        final int commitsBefore = mOperationCounts.mCommits;
+        int requestedCommits = mConfigurePending ? 1 : 0;
+
+        mCommittingPendingOperations = true;
+
+        try {
+            for (final PendingOperation operation : mPendingOperations) {
+                requestedCommits += operation.getCommitCost();
+            }
+
+            if (!mPendingOperations.isEmpty()) {
+                commitDetailStackChange(fragmentManager);
+            }
+
+            mPendingOperations.clear();
+            mConfigurePending = false;
+
+            fragmentManager.executePendingTransactions();
+        } finally {
+            mCommittingPendingOperations = false;
+        }
+
+        // A single pass over the panes covers every back stack change made above.
+        configureChildFragments();
+
+        mCoalescedCommitCount +=
+                Math.max(0, requestedCommits - (mOperationCounts.mCommits - commitsBefore));
+    }
+
+    // Applies every queued operation to the detail stack in one transaction. Only the net
+    // change matters: the entries kept from the current stack and the fragments pushed on top
+    // of them. The back stack then gains or loses one marker per level of difference.
+    private void commitDetailStackChange (final FragmentManager fragmentManager) {
+        final ArrayList<SplitViewDetailFragment> pushedFragments =
+                new ArrayList<SplitViewDetailFragment>();
+        FragmentTransaction transaction = null;
+        int keptDepth = mDetailStack.size();
+        boolean replaced = false;
+
+        for (final PendingOperation operation : mPendingOperations) {
+            switch (operation.type) {
+                case PendingOperation.SET: {
+                    keptDepth = 0;
+                    replaced = true;
+                    pushedFragments.clear();
+
+                    if (operation.detailFragment != null) {
+                        pushedFragments.add(operation.detailFragment);
+                    }
+
+                    break;
+                }
+                case PendingOperation.PUSH: {
+                    pushedFragments.add(operation.detailFragment);
+
+                    break;
+                }
+                case PendingOperation.POP: {
+                    if (!pushedFragments.isEmpty()) {
+                        pushedFragments.remove(pushedFragments.size() - 1);
+                    } else if (keptDepth > 0) {
+                        keptDepth--;
+                    }
+
+                    break;
+                }
+            }
+
+            // The transaction that came with the fragment ending up on top is committed. Any
+            // earlier one is superseded by it.
+            if (operation.transaction != null && operation.detailFragment != null) {
+                transaction = operation.transaction;
+            }
+        }
+
+        if (transaction == null || pushedFragments.isEmpty()) {
+            transaction = fragmentManager.beginTransaction();
+        }
+
+        final boolean splitViewLayout = isSplitViewLayout();
+        final boolean threePaneLayout = isThreePaneLayout(splitViewLayout);
+        final int previousDepth = mDetailStack.size();
+        final SplitViewDetailFragment topFragment = pushedFragments.isEmpty()
+                ? null : pushedFragments.get(pushedFragments.size() - 1);
+
+        if (replaced) {
+            applyPaneTransition(transaction, (!splitViewLayout && previousDepth == 0)
+                                             ? FragmentTransaction.TRANSIT_FRAGMENT_OPEN
+                                             : FragmentTransaction.TRANSIT_FRAGMENT_FADE);
+        } else {
+            applyPaneTransition(transaction, pushedFragments.isEmpty()
+                                             ? FragmentTransaction.TRANSIT_FRAGMENT_CLOSE
+                                             : FragmentTransaction.TRANSIT_FRAGMENT_OPEN);
+        }
+
+        while (mDetailStack.size() > keptDepth) {
+            final SplitViewDetailFragment fragment =
+                    mDetailStack.remove(mDetailStack.size() - 1).getFragment();
+
+            if (fragment == null || fragment == topFragment) {
+                continue;
+            }
+
+            if (replaced && mDetailFragmentCache != null && fragment.getCacheKey() != null) {
+                transaction.detach(fragment);
+                mDetailFragmentCache.put(fragment);
+            } else {
+                transaction.remove(fragment);
+            }
+        }
+
+        if (replaced) {
+            removeEvictedDetailFragments(transaction);
+        }
+
+        // Fragments pushed below the top are only created when they are popped back to.
+        for (int i = 0; i < pushedFragments.size() - 1; i++) {
+            mDetailStack.add(new DetailEntry(
+                    SplitViewDetailDescriptor.forFragment(pushedFragments.get(i)), null));
+        }
+
+        if (topFragment != null) {
+            final int depth = mDetailStack.size();
+            final int containerId = getDetailContainerId(depth, threePaneLayout);
+
+            topFragment.setController(this);
+
+            final SplitViewDetailFragment placedFragment =
+                    rehomeDetailFragment(topFragment, containerId, transaction);
+
+            if (placedFragment.isDetached()) {
+                transaction.attach(placedFragment);
+            } else if (!placedFragment.isAdded()) {
+                transaction.add(containerId, placedFragment,
+                                getDetailFragmentTag(placedFragment, depth));
+            }
+
+            mDetailStack.add(new DetailEntry(null, placedFragment));
+        }
+
+        trimLiveDetailEntries(transaction, 0, mMaxLiveDetailDepth);
+        transaction = placeDetailEntries(fragmentManager, transaction, threePaneLayout);
+
+        final DetailEntry topEntry = getTopDetailEntry();
+
+        if (topEntry != null && !topEntry.isRealized()) {
+            realizeDetailEntry(topEntry, transaction, mDetailStack.size() - 1);
+        }
+
+        mDetailFragment = getTopDetailFragment();
+
+        mPaneReconciler.reconcile(fragmentManager, transaction, mMasterFragment, mDetailFragment,
+                                  splitViewLayout);
+        transaction.commit();
+        mOperationCounts.mCommits++;
+
+        mNavigationMetrics.markCommitted(mDetailFragment);
+
+        final int markers = getDetailBackStackDepth(fragmentManager) + mPendingDetailMarkers;
+        final int missingMarkers =
+                mDetailStack.size() - markers + popDetailMarkers(fragmentManager,
+                                                                 markers - mDetailStack.size());
+
+        mPendingDetailMarkers += Math.max(0, missingMarkers);
+
+        for (int i = 0; i < missingMarkers; i++) {
+            fragmentManager.beginTransaction().addToBackStack(DETAIL_BACK_STACK_NAME).commit();
+            mOperationCounts.mCommits++;
+        }
+    }
+
+    private static final class PendingOperation {
+        static final int SET = 0;
+        static final int PUSH = 1;
+        static final int POP = 2;
+
+        final int type;
+        final SplitViewDetailFragment detailFragment;
+        final FragmentTransaction transaction;
+
+        PendingOperation (final int type, final SplitViewDetailFragment detailFragment,
+                          final FragmentTransaction transaction) {
+            this.type = type;
+            this.detailFragment = detailFragment;
+            this.transaction = transaction;
+        }
+
+        // The commits the operation makes when it is not batched: a transaction and a back
+        // stack marker for a new fragment, or the pass over the panes that follows a pop.
+        int getCommitCost () {
+            return (detailFragment != null) ? 2 : 1;
+        }
+    }
+
+
+    // ================================================================================
+    // Navigation Metrics
+    // ================================================================================
+
+    public void setNavigationMetricsListener (final NavigationMetricsListener listener) {
+        mNavigationMetrics.setListener(listener);
+    }
+
+    public SplitViewOperationCounts getOperationCounts () {
+        return mOperationCounts;
+    }
+
+    void onDetailFragmentAttached (final SplitViewDetailFragment detailFragment) {
+        mNavigationMetrics.markViewStarted(detailFragment);
+    }
+
+    void onDetailViewCreated (final SplitViewDetailFragment detailFragment) {
+        mNavigationMetrics.markViewCreated(detailFragment);
+    }
+
+    public interface NavigationMetricsListener {
+        public void onNavigationMetrics (final SplitViewNavigationMetrics metrics);
+    }
+
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    // Subclasses that install a layout policy can return getLayoutPolicy().isSplitViewLayout().
+    public abstract boolean isSplitViewLayout ();
+
+    public void setLayoutPolicy (final SplitViewLayoutPolicy layoutPolicy) {
+        mLayoutPolicy = layoutPolicy;
+
+        final Activity activity = getActivity();
+
+        if (layoutPolicy == null || activity == null) {
+            return;
+        }
+
+        if (layoutPolicy.update(activity.getResources().getConfiguration()) && mStarted) {
+            rebuildPaneLayout();
+            configureChildFragments();
+        }
+    }
+
+    public SplitViewLayoutPolicy getLayoutPolicy () {
+        return mLayoutPolicy;
+    }
+
+
+    // ================================================================================
+    // OnDetailViewChangedListener
+    // ================================================================================
+
+    public void addOnDetailViewChangedListener (final OnDetailViewChangedListener listener) {
+        mDetailViewChangedDispatcher.addListener(listener);
+    }
+
+    public void removeOnDetailViewChangedListener (final OnDetailViewChangedListener listener) {
+        mDetailViewChangedDispatcher.removeListener(listener);
+    }
+
+    public void setOnDetailViewChangedExecutor (final Executor executor) {
+        mDetailViewChangedDispatcher.setExecutor(executor);
     }
 
     public interface OnDetailViewChangedListener {
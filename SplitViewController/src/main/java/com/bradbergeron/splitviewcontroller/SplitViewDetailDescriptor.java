@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+public final class SplitViewDetailDescriptor implements Parcelable {
+    private final String mFragmentClassName;
+    private final String mArgumentKey;
+    private final Bundle mArgs;
+
+
+    public SplitViewDetailDescriptor (final Class<? extends SplitViewDetailFragment> fragmentClass,
+                                      final String argumentKey, final Bundle args) {
+        this(fragmentClass.getName(), argumentKey, args);
+    }
+
+    private SplitViewDetailDescriptor (final String fragmentClassName, final String argumentKey,
+                                       final Bundle args) {
+        mFragmentClassName = fragmentClassName;
+        mArgumentKey = argumentKey;
+        mArgs = args;
+    }
+
+
+    static SplitViewDetailDescriptor forFragment (final SplitViewDetailFragment detailFragment) {
+        final String fragmentClassName = detailFragment.getClass().getName();
+        final String cacheKey = detailFragment.getCacheKey();
+
+        // Cache keys are the class name and the argument key, separated by a colon.
+        final String argumentKey = (cacheKey != null)
+                ? cacheKey.substring(fragmentClassName.length() + 1) : null;
+
+        return new SplitViewDetailDescriptor(fragmentClassName, argumentKey,
+                                             detailFragment.getArguments());
+    }
+
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    public String getFragmentClassName () {
+        return mFragmentClassName;
+    }
+
+    public String getArgumentKey () {
+        return mArgumentKey;
+    }
+
+    public Bundle getArgs () {
+        return mArgs;
+    }
+
+    String getCacheKey () {
+        return DetailFragmentCache.getCacheKey(mFragmentClassName, mArgumentKey);
+    }
+
+
+    // ================================================================================
+    // Parcelable
+    // ================================================================================
+
+    @Override
+    public int describeContents () {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel (final Parcel dest, final int flags) {
+        dest.writeString(mFragmentClassName);
+        dest.writeString(mArgumentKey);
+        dest.writeBundle(mArgs);
+    }
+
+    public static final Creator<SplitViewDetailDescriptor> CREATOR =
+            new Creator<SplitViewDetailDescriptor>() {
+                @Override
+                public SplitViewDetailDescriptor createFromParcel (final Parcel source) {
+                    return new SplitViewDetailDescriptor(source.readString(), source.readString(),
+                                                         source.readBundle());
+                }
+
+                @Override
+                public SplitViewDetailDescriptor[] newArray (final int size) {
+                    return new SplitViewDetailDescriptor[size];
+                }
+            };
+}
@@ -22,9 +22,144 @@
 
 package com.bradbergeron.splitviewcontroller;
 
+import android.app.Activity;
 import android.app.FragmentTransaction;
+import android.content.Context;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 public abstract class SplitViewDetailFragment extends SplitViewAbsFragment {
+    private String mCacheKey;
+
+    private View mRecyclableView;
+
+    private ViewGroup mAsyncPlaceholder;
+    private AsyncDetailInflater.Request mAsyncInflationRequest;
+
+    private final AsyncDetailInflater.Callback mAsyncInflationCallback =
+            new AsyncDetailInflater.Callback() {
+                @Override
+                public void onInflated (final ViewGroup placeholder, final View view) {
+                    if (placeholder == mAsyncPlaceholder) {
+                        mAsyncInflationRequest = null;
+                        getController().onDetailViewInflated();
+                        setAsyncView(view);
+                    }
+                }
+
+                @Override
+                public void onInflationFailed (final ViewGroup placeholder,
+                                               final RuntimeException e) {
+                    if (placeholder == mAsyncPlaceholder) {
+                        // Some views can only be created on the main thread.
+                        mAsyncInflationRequest = null;
+                        getController().onDetailViewInflated();
+                        setAsyncView(LayoutInflater.from(placeholder.getContext())
+                                                   .inflate(getAsyncLayoutId(), placeholder,
+                                                            false));
+                    }
+                }
+            };
+
+
+    // ================================================================================
+    // Fragment Lifecycle
+    // ================================================================================
+
+    @Override
+    public void onAttach (final Activity activity) {
+        super.onAttach(activity);
+
+        final SplitViewController controller = getController();
+
+        if (controller != null) {
+            controller.onDetailFragmentAttached(this);
+        }
+    }
+
+    @Override
+    public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
+                              final Bundle savedInstanceState) {
+        final int layoutResId = getAsyncLayoutId();
+
+        if (layoutResId == 0) {
+            return super.onCreateView(inflater, container, savedInstanceState);
+        }
+
+        final FrameLayout placeholder = new FrameLayout(inflater.getContext());
+        placeholder.setLayoutParams(
+                new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                           ViewGroup.LayoutParams.MATCH_PARENT));
+
+        mAsyncPlaceholder = placeholder;
+
+        final SplitViewController controller = getController();
+
+        // A restored fragment creates its view before the controller is set again, so there is
+        // no pool or worker to use yet.
+        if (controller == null) {
+            setAsyncView(inflater.inflate(layoutResId, placeholder, false));
+
+            return placeholder;
+        }
+
+        final View recycledView = controller.acquireDetailView(getClass());
+
+        if (recycledView != null) {
+            setAsyncView(recycledView);
+        } else {
+            final View placeholderContent = onCreatePlaceholderView(inflater, placeholder);
+
+            if (placeholderContent != null) {
+                placeholder.addView(placeholderContent);
+            }
+
+            mAsyncInflationRequest = controller
+                    .inflateDetailViewAsync(inflater, layoutResId, placeholder,
+                                            mAsyncInflationCallback);
+        }
+
+        return placeholder;
+    }
+
+    @Override
+    public void onActivityCreated (final Bundle savedInstanceState) {
+        super.onActivityCreated(savedInstanceState);
+
+        final SplitViewController controller = getController();
+
+        if (controller != null) {
+            controller.onDetailViewCreated(this);
+        }
+    }
+
+    @Override
+    public void onDestroyView () {
+        if (mAsyncInflationRequest != null) {
+            mAsyncInflationRequest.cancel();
+            mAsyncInflationRequest = null;
+        }
+
+        if (mAsyncPlaceholder != null && mRecyclableView != null) {
+            mAsyncPlaceholder.removeView(mRecyclableView);
+        }
+
+        mAsyncPlaceholder = null;
+
+        final SplitViewController controller = getController();
+
+        if (mRecyclableView != null && controller != null) {
+            controller.releaseDetailView(getClass(), mRecyclableView);
+        }
+
+        mRecyclableView = null;
+
+        super.onDestroyView();
+    }
+
 
     // ================================================================================
     // Presentation
@@ -36,13 +171,71 @@ public abstract class SplitViewDetailFragment extends SplitViewAbsFragment {
 
     protected void pushDetailFragment (final SplitViewDetailFragment detailFragment,
                                        final FragmentTransaction transaction) {
-        detailFragment.setController(getController());
+        getController().pushDetailFragment(detailFragment, transaction);
+    }
+
+
+    // ================================================================================
+    // Prefetching
+    // ================================================================================
+
+    protected void onPrefetch (final Context context) { }
+
+    protected void onPrefetchDiscarded () { }
+
+
+    // ================================================================================
+    // View Recycling
+    // ================================================================================
+
+    protected View inflateRecyclableView (final LayoutInflater inflater, final int layoutResId,
+                                          final ViewGroup container) {
+        // Fragments restored by the FragmentManager create their views before the controller
+        // is set again. Their views go back to the pool once it is.
+        final SplitViewController controller = getController();
+        View view = (controller != null) ? controller.acquireDetailView(getClass()) : null;
+
+        if (view == null) {
+            view = inflater.inflate(layoutResId, container, false);
+
+            if (controller != null) {
+                controller.onDetailViewInflated();
+            }
+        }
+
+        mRecyclableView = view;
 
-        transaction.replace(getId(), detailFragment);
-        transaction.addToBackStack(null);
-        transaction.commit();
+        onRebind(view, getArguments());
+
+        return view;
     }
 
+    protected void onRebind (final View view, final Bundle args) { }
+
+
+    // ================================================================================
+    // Asynchronous Inflation
+    // ================================================================================
+
+    protected int getAsyncLayoutId () {
+        return 0;
+    }
+
+    protected View onCreatePlaceholderView (final LayoutInflater inflater,
+                                            final ViewGroup placeholder) {
+        return null;
+    }
+
+    private void setAsyncView (final View view) {
+        mAsyncPlaceholder.removeAllViews();
+        mAsyncPlaceholder.addView(view);
+
+        mRecyclableView = view;
+
+        onRebind(view, getArguments());
+    }
+
+
     // ================================================================================
     // Helpers
     // ================================================================================
@@ -59,4 +252,12 @@ public abstract class SplitViewDetailFragment extends SplitViewAbsFragment {
     protected int getViewId () {
         return getController().getDetailFragmentContainerId();
     }
+
+    void setCacheKey (final String cacheKey) {
+        mCacheKey = cacheKey;
+    }
+
+    String getCacheKey () {
+        return mCacheKey;
+    }
 }
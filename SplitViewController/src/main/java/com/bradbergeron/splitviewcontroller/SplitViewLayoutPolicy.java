@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+import android.content.res.Configuration;
+
+public class SplitViewLayoutPolicy {
+    private final int mSplitEnterWidthDp;
+    private final int mSplitExitWidthDp;
+
+    private int mScreenWidthDp = Configuration.SCREEN_WIDTH_DP_UNDEFINED;
+    private boolean mSplitViewLayout;
+
+
+    // The split layout is entered at splitEnterWidthDp and only left again below
+    // splitExitWidthDp, so resizing around a single breakpoint does not flip the layout.
+    public SplitViewLayoutPolicy (final int splitEnterWidthDp, final int splitExitWidthDp) {
+        if (splitExitWidthDp > splitEnterWidthDp) {
+            throw new IllegalArgumentException(
+                    "Split exit width must not be larger than the split enter width.");
+        }
+
+        mSplitEnterWidthDp = splitEnterWidthDp;
+        mSplitExitWidthDp = splitExitWidthDp;
+    }
+
+
+    // ================================================================================
+    // Layout Policy
+    // ================================================================================
+
+    public boolean isSplitViewLayout () {
+        return mSplitViewLayout;
+    }
+
+    public int getSplitEnterWidthDp () {
+        return mSplitEnterWidthDp;
+    }
+
+    public int getSplitExitWidthDp () {
+        return mSplitExitWidthDp;
+    }
+
+    protected boolean shouldUseSplitViewLayout (final int screenWidthDp,
+                                                final boolean splitViewLayout) {
+        return splitViewLayout ? screenWidthDp >= mSplitExitWidthDp
+                               : screenWidthDp >= mSplitEnterWidthDp;
+    }
+
+    boolean update (final Configuration configuration) {
+        final int screenWidthDp = configuration.screenWidthDp;
+
+        if (screenWidthDp == mScreenWidthDp ||
+            screenWidthDp == Configuration.SCREEN_WIDTH_DP_UNDEFINED) {
+            return false;
+        }
+
+        mScreenWidthDp = screenWidthDp;
+
+        final boolean splitViewLayout = shouldUseSplitViewLayout(screenWidthDp, mSplitViewLayout);
+
+        if (splitViewLayout == mSplitViewLayout) {
+            return false;
+        }
+
+        mSplitViewLayout = splitViewLayout;
+
+        return true;
+    }
+}
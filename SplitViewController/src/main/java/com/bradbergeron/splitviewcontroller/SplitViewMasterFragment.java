@@ -23,6 +23,9 @@
 package com.bradbergeron.splitviewcontroller;
 
 import android.app.FragmentTransaction;
+import android.os.Bundle;
+
+import java.util.List;
 
 public abstract class SplitViewMasterFragment extends SplitViewAbsFragment {
 
@@ -39,6 +42,31 @@ public abstract class SplitViewMasterFragment extends SplitViewAbsFragment {
         getController().setDetailFragment(detailFragment, transaction);
     }
 
+    protected void setDetailStack (final List<SplitViewDetailDescriptor> descriptors) {
+        getController().setDetailStack(descriptors);
+    }
+
+    protected <T extends SplitViewDetailFragment> T obtainDetailFragment (
+            final Class<T> fragmentClass, final String argumentKey, final Bundle args) {
+        return getController().obtainDetailFragment(fragmentClass, argumentKey, args);
+    }
+
+    protected void requestDetailFragment (
+            final Class<? extends SplitViewDetailFragment> fragmentClass, final String argumentKey,
+            final Bundle args) {
+        getController().requestDetailFragment(fragmentClass, argumentKey, args);
+    }
+
+    protected void prefetchDetailFragment (
+            final Class<? extends SplitViewDetailFragment> fragmentClass, final String argumentKey,
+            final Bundle args) {
+        getController().prefetchDetailFragment(fragmentClass, argumentKey, args);
+    }
+
+    protected void cancelDetailPrefetch () {
+        getController().cancelDetailPrefetch();
+    }
+
 
     // ================================================================================
     // Helpers
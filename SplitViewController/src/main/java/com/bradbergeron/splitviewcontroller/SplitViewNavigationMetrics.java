@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+public final class SplitViewNavigationMetrics {
+    public static final int KIND_SET = 0;
+    public static final int KIND_PUSH = 1;
+    public static final int KIND_POP = 2;
+    public static final int KIND_MODE_CHANGE = 3;
+
+    int mKind;
+    long mCreateNanos;
+    long mInflateNanos;
+    long mCommitNanos;
+    long mFirstDrawNanos;
+
+
+    SplitViewNavigationMetrics () { }
+
+
+    // ================================================================================
+    // Properties
+    // ================================================================================
+
+    public int getKind () {
+        return mKind;
+    }
+
+    public long getCreateNanos () {
+        return mCreateNanos;
+    }
+
+    public long getInflateNanos () {
+        return mInflateNanos;
+    }
+
+    public long getCommitNanos () {
+        return mCommitNanos;
+    }
+
+    public long getFirstDrawNanos () {
+        return mFirstDrawNanos;
+    }
+
+    void reset (final int kind) {
+        mKind = kind;
+        mCreateNanos = 0;
+        mInflateNanos = 0;
+        mCommitNanos = 0;
+        mFirstDrawNanos = 0;
+    }
+}
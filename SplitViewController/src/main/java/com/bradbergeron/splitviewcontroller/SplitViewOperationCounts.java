@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014 Bradley David Bergeron
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.bradbergeron.splitviewcontroller;
+
+public final class SplitViewOperationCounts {
+    int mCommits;
+    int mInstantiations;
+    int mInflations;
+    int mRecycledViews;
+
+
+    SplitViewOperationCounts () { }
+
+
+    // ================================================================================
+    // Counts
+    // ================================================================================
+
+    public int getCommitCount () {
+        return mCommits;
+    }
+
+    public int getInstantiationCount () {
+        return mInstantiations;
+    }
+
+    public int getInflationCount () {
+        return mInflations;
+    }
+
+    public int getRecycledViewCount () {
+        return mRecycledViews;
+    }
+
+    public void reset () {
+        mCommits = 0;
+        mInstantiations = 0;
+        mInflations = 0;
+        mRecycledViews = 0;
+    }
+
+    @Override
+    public String toString () {
+        return "commits=" + mCommits + " instantiations=" + mInstantiations + " inflations="
+                + mInflations + " recycledViews=" + mRecycledViews;
+    }
+}
@@ -39,6 +39,7 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 
+import com.bradbergeron.splitviewcontroller.SplitViewController;
 import com.bradbergeron.splitviewcontrollerdemo.R;
 import com.bradbergeron.splitviewcontrollerdemo.fragments.DrawerFragment;
 
@@ -136,6 +137,10 @@ public class MainActivity extends ActionBarActivity
             return;
         }
 
+        if (popSplitViewDetail()) {
+            return;
+        }
+
         final FragmentManager fragmentManager = getFragmentManager();
 
         if (fragmentManager.getBackStackEntryCount() > 0) {
@@ -147,6 +152,14 @@ public class MainActivity extends ActionBarActivity
         super.onBackPressed();
     }
 
+    // The split view keeps its details on its own back stack.
+    private boolean popSplitViewDetail () {
+        final Fragment content = getFragmentManager().findFragmentById(R.id.content);
+
+        return content instanceof SplitViewController &&
+               ((SplitViewController) content).onBackPressed();
+    }
+
     // ================================================================================
     // Options Menu
     // ================================================================================
@@ -174,7 +187,9 @@ public class MainActivity extends ActionBarActivity
 
         switch (item.getItemId()) {
             case android.R.id.home: {
-                getFragmentManager().popBackStack();
+                if (!popSplitViewDetail()) {
+                    getFragmentManager().popBackStack();
+                }
 
                 return true;
             }
@@ -60,8 +60,11 @@ public class DetailFragment extends SplitViewDetailFragment {
     @Override
     public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
                               final Bundle savedInstanceState) {
-        final View view = inflater.inflate(R.layout.fragment_details, container, false);
+        return inflateRecyclableView(inflater, R.layout.fragment_details, container);
+    }
 
+    @Override
+    protected void onRebind (final View view, final Bundle args) {
         final TextView itemNameTextView =
                 (TextView) view.findViewById(R.id.detailView_itemNameTextView);
         itemNameTextView.setText(mItemName);
@@ -80,8 +83,6 @@ public class DetailFragment extends SplitViewDetailFragment {
                 pushDetailFragment(moreDetailsFragment);
             }
         });
-
-        return view;
     }
 
     @Override
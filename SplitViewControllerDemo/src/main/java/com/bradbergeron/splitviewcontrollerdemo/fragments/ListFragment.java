@@ -22,11 +22,11 @@
 
 package com.bradbergeron.splitviewcontrollerdemo.fragments;
 
-import android.app.Fragment;
 import android.content.Context;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
@@ -76,15 +76,52 @@ public class ListFragment extends SplitViewMasterFragment {
                                      final int position, final long id) {
                 final String itemName = mItems.get(position);
 
-                final Bundle args = new Bundle();
-                args.putString(DetailFragment.ARGS_ITEM_NAME, itemName);
-
-                final DetailFragment detailFragment = (DetailFragment) Fragment
-                        .instantiate(getActivity(), DetailFragment.class.getName(), args);
+                final DetailFragment detailFragment = obtainDetailFragment(
+                        DetailFragment.class, itemName, createDetailArgs(itemName));
 
                 setDetailFragment(detailFragment);
             }
         });
+        mListView.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected (final AdapterView<?> parent, final View view,
+                                        final int position, final long id) {
+                if (getController().isSplitViewLayout()) {
+                    // Stepping through the list shows each item, but only once selection settles.
+                    final String itemName = mItems.get(position);
+
+                    requestDetailFragment(DetailFragment.class, itemName,
+                                          createDetailArgs(itemName));
+                } else {
+                    prefetchItem(position);
+                }
+            }
+
+            @Override
+            public void onNothingSelected (final AdapterView<?> parent) {
+                cancelDetailPrefetch();
+            }
+        });
+        mListView.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch (final View v, final MotionEvent event) {
+                switch (event.getActionMasked()) {
+                    case MotionEvent.ACTION_DOWN: {
+                        prefetchItem(mListView.pointToPosition((int) event.getX(),
+                                                               (int) event.getY()));
+
+                        break;
+                    }
+                    case MotionEvent.ACTION_CANCEL: {
+                        cancelDetailPrefetch();
+
+                        break;
+                    }
+                }
+
+                return false;
+            }
+        });
 
         return mListView;
     }
@@ -118,6 +155,28 @@ public class ListFragment extends SplitViewMasterFragment {
     }
 
 
+    // ================================================================================
+    // Detail Fragment
+    // ================================================================================
+
+    private void prefetchItem (final int position) {
+        if (position == AdapterView.INVALID_POSITION) {
+            return;
+        }
+
+        final String itemName = mItems.get(position);
+
+        prefetchDetailFragment(DetailFragment.class, itemName, createDetailArgs(itemName));
+    }
+
+    private static Bundle createDetailArgs (final String itemName) {
+        final Bundle args = new Bundle();
+        args.putString(DetailFragment.ARGS_ITEM_NAME, itemName);
+
+        return args;
+    }
+
+
     // ================================================================================
     // List Adapter
     // ================================================================================
@@ -24,9 +24,7 @@ package com.bradbergeron.splitviewcontrollerdemo.fragments;
 
 import android.os.Bundle;
 import android.util.Log;
-import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.bradbergeron.splitviewcontroller.SplitViewDetailFragment;
@@ -54,15 +52,15 @@ public class MoreDetailsFragment extends SplitViewDetailFragment {
     }
 
     @Override
-    public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
-                              final Bundle savedInstanceState) {
-        final View view = inflater.inflate(R.layout.fragment_moredetails, container, false);
+    protected int getAsyncLayoutId () {
+        return R.layout.fragment_moredetails;
+    }
 
+    @Override
+    protected void onRebind (final View view, final Bundle args) {
         final TextView itemNameTextView =
                 (TextView) view.findViewById(R.id.moreDetails_itemNameTextView);
         itemNameTextView.setText(mItemName);
-
-        return view;
     }
 
     @Override
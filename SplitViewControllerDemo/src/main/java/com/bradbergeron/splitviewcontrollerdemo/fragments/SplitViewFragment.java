@@ -25,6 +25,7 @@ package com.bradbergeron.splitviewcontrollerdemo.fragments;
 import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.ActionBarActivity;
@@ -32,6 +33,7 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.Window;
 
 import com.bradbergeron.splitviewcontroller.SplitViewController;
 import com.bradbergeron.splitviewcontroller.SplitViewMasterFragment;
@@ -41,27 +43,42 @@ import com.bradbergeron.splitviewcontrollerdemo.activities.MainActivity;
 public class SplitViewFragment extends SplitViewController {
     private static final String TAG = SplitViewFragment.class.getSimpleName();
 
+    private static final int DETAIL_FRAGMENT_CACHE_SIZE = 4;
+
     private final FragmentManager.OnBackStackChangedListener mBackStackListener =
             new FragmentManager.OnBackStackChangedListener() {
                 @Override
                 public void onBackStackChanged () {
-                    if (getFragmentManager().getBackStackEntryCount() == 0) {
+                    if (getPaneFragmentManager().getBackStackEntryCount() == 0) {
                         setDetailViewTitle(getString(R.string.app_name));
                     }
                 }
             };
 
+    private Drawable mWindowBackground;
+
 
     // ================================================================================
     // Lifecycle
     // ================================================================================
 
+    @Override
+    public void onCreate (final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        setChildFragmentManagerEnabled(true);
+        setDetailFragmentCacheSize(DETAIL_FRAGMENT_CACHE_SIZE);
+        setKeepMasterPaneAlive(true);
+        setLazyDetailRestorationEnabled(true);
+        setPaneTransitionsEnabled(true);
+    }
+
     @Override
     public View onCreateView (final LayoutInflater inflater, final ViewGroup container,
                               final Bundle savedInstanceState) {
-        final View view = inflater.inflate(R.layout.fragment_splitview, container, false);
+        final View view = super.onCreateView(inflater, container, savedInstanceState);
 
-        SplitViewMasterFragment masterFragment = (SplitViewMasterFragment) getFragmentManager()
+        SplitViewMasterFragment masterFragment = (SplitViewMasterFragment) getPaneFragmentManager()
                 .findFragmentById(getMasterFragmentContainerId());
 
         if (masterFragment == null) {
@@ -80,7 +97,13 @@ public class SplitViewFragment extends SplitViewController {
 
         Log.d(TAG, "onStart");
 
-        getFragmentManager().addOnBackStackChangedListener(mBackStackListener);
+        getPaneFragmentManager().addOnBackStackChangedListener(mBackStackListener);
+
+        // The opaque panes cover the content area, so the window background would only be drawn
+        // over while the split view is showing. Other content relies on it, so it is restored.
+        final Window window = getActivity().getWindow();
+        mWindowBackground = window.getDecorView().getBackground();
+        window.setBackgroundDrawable(null);
     }
 
     @Override
@@ -101,7 +124,10 @@ public class SplitViewFragment extends SplitViewController {
     public void onStop () {
         Log.d(TAG, "onStop");
 
-        getFragmentManager().removeOnBackStackChangedListener(mBackStackListener);
+        getPaneFragmentManager().removeOnBackStackChangedListener(mBackStackListener);
+
+        getActivity().getWindow().setBackgroundDrawable(mWindowBackground);
+        mWindowBackground = null;
 
         super.onStop();
     }
@@ -111,6 +137,11 @@ public class SplitViewFragment extends SplitViewController {
     // Split View Controller
     // ================================================================================
 
+    @Override
+    protected int getPaneLayoutId () {
+        return R.layout.fragment_splitview;
+    }
+
     @Override
     public int getMasterFragmentContainerId () {
         return R.id.masterView;
@@ -121,6 +152,11 @@ public class SplitViewFragment extends SplitViewController {
         return R.id.detailView;
     }
 
+    @Override
+    public int getSubDetailFragmentContainerId () {
+        return R.id.subDetailView;
+    }
+
     @Override
     public boolean isSplitViewLayout () {
         return getResources().getBoolean(R.bool.is_split_view_layout);